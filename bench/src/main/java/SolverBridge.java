@@ -0,0 +1,51 @@
+//see slither.bench.Solver
+
+public class SolverBridge implements slither.bench.Solver
+{
+	public Object parse(String puzzle)
+	{
+		return new SlitherSolverOO(puzzle);
+	}
+	public Object solve(String puzzle)
+	{
+		SlitherSolverOO s = new SlitherSolverOO(puzzle);
+		s.solve();
+		return s;
+	}
+	public String stripHTML(byte[] page)
+	{
+		return SlitherSolverOO.stripHTML(new java.io.ByteArrayInputStream(page));
+	}
+	public Object readHTML(java.nio.channels.ReadableByteChannel page) throws java.io.IOException
+	{
+		return HtmlBoardReader.read(page).board();
+	}
+	public void render(Object board, boolean showXs, boolean unicode)
+	{
+		((SlitherSolverOO)board).print(showXs,unicode);
+	}
+	public byte[] encode(Object board)
+	{
+		return Solution.of((SlitherSolverOO)board).toBytes(Solution.Format.RAW);
+	}
+	public Object quotaSweep(String puzzle, int scale, boolean vector)
+	{
+		SlitherSolverFlat solved = new SlitherSolverFlat(puzzle);
+		solved.solve();
+		SlitherSolverFlat board = new SlitherSolverFlat(solved.rows*scale,solved.cols*scale);
+		for (int r = 0; r < board.rows; r++)
+			for (int c = 0; c < board.cols; c++)
+				board.clue[r*board.cols+c] = solved.clue[(r%solved.rows)*solved.cols+c%solved.cols];
+		for (int r = 0; r < board.rows*2+1; r++)
+			for (int c = 0; c < board.w; c++)
+				board.edge[r*board.w+c] = (r*board.w+c)%3 == 0 ? SlitherSolverFlat.UNKNOWN
+					: solved.edge[(r%(solved.rows*2))*solved.w+c%solved.cols];
+		QuotaSweep sweep = vector ? QuotaSweep.vector(board) : new QuotaSweep(board);
+		return sweep == null ? null : new Object[] {sweep,board.edge,new int[board.rows*board.cols]};
+	}
+	public int sweep(Object quota)
+	{
+		Object[] q = (Object[])quota;
+		return ((QuotaSweep)q[0]).sweep((int[])q[1],(int[])q[2]);
+	}
+}
@@ -0,0 +1,46 @@
+package slither.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+//getting the puzzle out of the saved monthly puzzle page (about 1 MB), as text or straight into a board;
+//both read the same bytes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlBenchmark
+{
+	static final Solver SOLVER = Solver.load();
+
+	byte[] page;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		page = Testcases.bytes("garbage_monthly_3.19");
+		Testcases.silence();
+	}
+	@TearDown
+	public void tearDown()
+	{
+		Testcases.restore();
+	}
+
+	@Benchmark
+	public String stripHTML()
+	{
+		return SOLVER.stripHTML(page);
+	}
+	@Benchmark
+	public Object readHTML() throws IOException
+	{
+		return SOLVER.readHTML(Channels.newChannel(new ByteArrayInputStream(page)));
+	}
+}
@@ -0,0 +1,40 @@
+package slither.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+//one QuotaSweep over a whole board, plain against the Vector API, on 40x50 and on 40x50 tiled 4 times each way (160x200)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules","jdk.incubator.vector"})
+public class QuotaBenchmark
+{
+	static final Solver SOLVER = Solver.load();
+
+	@Param({"slithertest40x50.txt"})
+	String puzzle;
+	@Param({"1","4"})
+	int scale;
+	@Param({"false","true"})
+	boolean vector;
+	Object quota;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		quota = SOLVER.quotaSweep(Testcases.read(puzzle),scale,vector);
+		if (quota == null)
+			throw new IllegalStateException("no jdk.incubator.vector");
+	}
+
+	@Benchmark
+	public int sweep()
+	{
+		return SOLVER.sweep(quota);
+	}
+}
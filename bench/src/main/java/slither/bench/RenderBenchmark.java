@@ -0,0 +1,50 @@
+package slither.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+//print(showXs,unicode) of each bundled puzzle once it's solved, into a null stream, and the compact encoding of the same board
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark
+{
+	static final Solver SOLVER = Solver.load();
+
+	@Param({"slithertest5.txt","slithertest7.txt","slithertest10.txt","slithertest15.txt",
+		"slithertest20.txt","slithertest25x30.txt","slithertest40x50.txt"})
+	String puzzle;
+	@Param({"false","true"})
+	boolean showXs;
+	@Param({"true","false"})
+	boolean unicode;
+	Object board;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		board = SOLVER.solve(Testcases.read(puzzle));
+		Testcases.silence();
+	}
+	@TearDown
+	public void tearDown()
+	{
+		Testcases.restore();
+	}
+
+	@Benchmark
+	public void render()
+	{
+		SOLVER.render(board,showXs,unicode);
+	}
+	@Benchmark
+	public byte[] encode()
+	{
+		return SOLVER.encode(board);
+	}
+}
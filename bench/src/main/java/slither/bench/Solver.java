@@ -0,0 +1,33 @@
+package slither.bench;
+
+//the solver classes live in the default package, which JMH benchmarks (and anything else in a package) can't see.
+//SolverBridge, in the default package, implements this so the benchmarks can get at them anyway
+public interface Solver
+{
+	//a board parsed from "rows cols" + clue grid text
+	Object parse(String puzzle);
+	//parse, then solve
+	Object solve(String puzzle);
+	//a saved page's puzzle as "rows cols" + clue grid text
+	String stripHTML(byte[] page);
+	//a board straight from a saved page, streamed through a channel
+	Object readHTML(java.nio.channels.ReadableByteChannel page) throws java.io.IOException;
+	//print(showXs,unicode) on a board from parse() or solve()
+	void render(Object board, boolean showXs, boolean unicode);
+	//the board's on edges, as Solution's RAW bytes
+	byte[] encode(Object board);
+	//a QuotaSweep (VectorQuotaSweep if vector, or null without jdk.incubator.vector) over a solved SlitherSolverFlat,
+	//tiled scale times each way, with every third edge undecided again
+	Object quotaSweep(String puzzle, int scale, boolean vector);
+	//one sweep over the board from quotaSweep(); returns how many cells it found
+	int sweep(Object quota);
+
+	static Solver load()
+	{
+		try {
+			return (Solver)Class.forName("SolverBridge").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("SolverBridge missing from the benchmark jar",e);
+		}
+	}
+}
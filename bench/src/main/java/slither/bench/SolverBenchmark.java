@@ -0,0 +1,46 @@
+package slither.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+//parsing and solving each bundled puzzle. solve includes its own parse, so subtract parse to get propagation alone
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark
+{
+	static final Solver SOLVER = Solver.load();
+
+	@Param({"slithertest5.txt","slithertest7.txt","slithertest10.txt","slithertest15.txt",
+		"slithertest20.txt","slithertest25x30.txt","slithertest40x50.txt"})
+	String puzzle;
+	String text;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		text = Testcases.read(puzzle);
+		Testcases.silence();
+	}
+	@TearDown
+	public void tearDown()
+	{
+		Testcases.restore();
+	}
+
+	@Benchmark
+	public Object parse()
+	{
+		return SOLVER.parse(text);
+	}
+	@Benchmark
+	public Object solve()
+	{
+		return SOLVER.solve(text);
+	}
+}
@@ -0,0 +1,44 @@
+package slither.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+//finds the bundled testcases, and keeps the solver's printing from flooding the benchmark output
+final class Testcases
+{
+	private static PrintStream out, err;
+
+	private Testcases() {}
+
+	//-Dslither.testcases=dir, or testcases/ in (or next to) the working directory
+	static String read(String name) throws IOException
+	{
+		return new String(bytes(name),StandardCharsets.UTF_8);
+	}
+	static byte[] bytes(String name) throws IOException
+	{
+		String configured = System.getProperty("slither.testcases");
+		Path dir = configured != null ? Paths.get(configured)
+			: Files.isDirectory(Paths.get("testcases")) ? Paths.get("testcases") : Paths.get("..","testcases");
+		return Files.readAllBytes(dir.resolve(name));
+	}
+
+	static void silence()
+	{
+		out = System.out;
+		err = System.err;
+		PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+		System.setOut(nowhere);
+		System.setErr(nowhere);
+	}
+	static void restore()
+	{
+		System.setOut(out);
+		System.setErr(err);
+	}
+}
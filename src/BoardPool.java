@@ -0,0 +1,84 @@
+//boards that are done with, kept to be reset() and solved on again, so a batch or the server solving puzzles of the
+//same few sizes over and over stops allocating a few objects per cell for every one. boards are kept by size,
+//at most perSize of each, for at most MAX_SIZES sizes; anything past that is left to the garbage collector.
+//one pool can be shared by any number of threads (virtual ones included, which is why it isn't a ThreadLocal).
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+public class BoardPool
+{
+	static final int MAX_SIZES = 64;
+
+	static class Shelf
+	{
+		int rows, cols;
+		ArrayDeque<SlitherSolverOO> boards = new ArrayDeque<SlitherSolverOO>();
+
+		public Shelf(int r, int c)
+		{
+			rows = r;
+			cols = c;
+		}
+	}
+
+	ArrayList<Shelf> shelves = new ArrayList<Shelf>();
+	int perSize;
+	long reused, made;
+
+	public BoardPool(int p)
+	{
+		perSize = p;
+	}
+
+	//a blank rows by cols board: one that was given back, if there is one
+	public SlitherSolverOO take(int rows, int cols)
+	{
+		SlitherSolverOO board;
+		synchronized (this) {
+			Shelf shelf = shelf(rows,cols,false);
+			board = shelf == null ? null : shelf.boards.poll();
+			if (board == null)
+				made++;
+			else
+				reused++;
+		}
+		if (board == null)
+			return new SlitherSolverOO(rows,cols);
+		board.reset(rows,cols);
+		return board;
+	}
+	//the same, with clues[row*cols+col] filled in
+	public SlitherSolverOO take(int rows, int cols, byte[] clues)
+	{
+		SlitherSolverOO board = take(rows,cols);
+		board.setClues(clues);
+		return board;
+	}
+	//board won't be looked at again by whoever had it
+	public synchronized void give(SlitherSolverOO board)
+	{
+		Shelf shelf = shelf(board.rows,board.cols,true);
+		if (shelf != null && shelf.boards.size() < perSize)
+			shelf.boards.push(board);
+	}
+	Shelf shelf(int rows, int cols, boolean create)
+	{
+		for (int i = 0; i < shelves.size(); i++)
+		{
+			Shelf shelf = shelves.get(i);
+			if (shelf.rows == rows && shelf.cols == cols)
+				return shelf;
+		}
+		if (!create || shelves.size() == MAX_SIZES)
+			return null;
+		Shelf shelf = new Shelf(rows,cols);
+		shelves.add(shelf);
+		return shelf;
+	}
+
+	public synchronized String report()
+	{
+		return String.format("board pool: %d boards reused, %d made",reused,made);
+	}
+}
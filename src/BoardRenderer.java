@@ -0,0 +1,131 @@
+//draws a board the way print() always has, straight into UTF-8 bytes. the buffer is sized for the board up front
+//and kept, so drawing the same board (or another the same size) again allocates nothing.
+
+import java.io.OutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class BoardRenderer
+{
+	byte[] out;
+	int length;
+
+	public BoardRenderer(int rows, int cols)
+	{
+		out = new byte[capacity(rows,cols)];
+	}
+	//box-drawing characters are 3 bytes each
+	static int capacity(int rows, int cols)
+	{
+		return (rows*2+1)*((cols*2+1)*3+1);
+	}
+
+	public BoardRenderer render(SlitherSolverOO s, boolean showXs, boolean unicode)
+	{
+		start(s.rows,s.cols);
+		for (int r = 0; r < s.rows*2+1; r++)
+		{
+			for (int c = 0; c < s.cols*2+1; c++)
+			{
+				if (r%2 == 0 && c%2 == 0)
+					vertex(s.vertices[r/2][c/2].state,unicode);
+				else if (r%2 == 0 || c%2 == 0)
+					edge(s.edges[r][c/2].state,r%2 == 0,showXs,unicode);
+				else
+					cell(s.cells[r/2][c/2].clue,showXs);
+			}
+			out[length++] = '\n';
+		}
+		return this;
+	}
+	public BoardRenderer render(SlitherSolverFlat s, boolean showXs, boolean unicode)
+	{
+		start(s.rows,s.cols);
+		for (int r = 0; r < s.rows*2+1; r++)
+		{
+			for (int c = 0; c < s.cols*2+1; c++)
+			{
+				if (r%2 == 0 && c%2 == 0)
+					vertex(s.vstate[(r/2)*s.w+c/2],unicode);
+				else if (r%2 == 0 || c%2 == 0)
+					edge(s.edge[r*s.w+c/2],r%2 == 0,showXs,unicode);
+				else
+					cell(s.clue[(r/2)*s.cols+c/2],showXs);
+			}
+			out[length++] = '\n';
+		}
+		return this;
+	}
+	void start(int rows, int cols)
+	{
+		if (out.length < capacity(rows,cols))
+			out = new byte[capacity(rows,cols)];
+		length = 0;
+	}
+
+	void vertex(int v, boolean unicode)
+	{
+		if (v == SlitherSolverOO.UD)
+			put(unicode ? '\u2502' : '|');
+		else if (v == SlitherSolverOO.UL)
+			put(unicode ? '\u2518' : '+');
+		else if (v == SlitherSolverOO.UR)
+			put(unicode ? '\u2514' : '+');
+		else if (v == SlitherSolverOO.LR)
+			put(unicode ? '\u2500' : '-');
+		else if (v == SlitherSolverOO.LD)
+			put(unicode ? '\u2510' : '+');
+		else if (v == SlitherSolverOO.RD)
+			put(unicode ? '\u250c' : '+');
+		else
+			put(' ');
+	}
+	void edge(int state, boolean horizontal, boolean showXs, boolean unicode)
+	{
+		if (state > SlitherSolverOO.OFF)
+			put(horizontal ? (unicode ? '\u2500' : '-') : (unicode ? '\u2502' : '|'));
+		else if (state == SlitherSolverOO.OFF && showXs)
+			put('x');
+		else
+			put(' ');
+	}
+	void cell(byte clue, boolean showXs)
+	{
+		if (clue < SlitherSolverOO.NO_INFO)
+			put((char)('0'+clue));
+		else if (showXs)
+			put('.');
+		else
+			put(' ');
+	}
+	//only ever ASCII or U+0800-U+FFFF
+	void put(char ch)
+	{
+		if (ch < 0x80)
+			out[length++] = (byte)ch;
+		else
+		{
+			out[length++] = (byte)(0xE0 | ch >> 12);
+			out[length++] = (byte)(0x80 | (ch >> 6 & 0x3F));
+			out[length++] = (byte)(0x80 | (ch & 0x3F));
+		}
+	}
+
+	public int length()
+	{
+		return length;
+	}
+	public void writeTo(OutputStream o) throws IOException
+	{
+		o.write(out,0,length);
+	}
+	public void writeTo(ByteBuffer b)
+	{
+		b.put(out,0,length);
+	}
+	public String toString()
+	{
+		return new String(out,0,length,StandardCharsets.UTF_8);
+	}
+}
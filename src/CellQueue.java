@@ -0,0 +1,94 @@
+//the propagation scheduler: cell indices (row*cols+col) in a ring, each one queued at most once.
+//cells that become interesting while another is being worked on are staged first,
+//and only join the queue at the next enqueueNext()
+
+public class CellQueue
+{
+	int[] ring;
+	int head, size;
+	boolean[] queued;
+	int[] staged;
+	int stagedSize;
+	boolean[] isStaged;
+
+	public CellQueue(int cells)
+	{
+		ring = new int[Math.max(cells,1)];
+		queued = new boolean[cells];
+		staged = new int[Math.max(cells,1)];
+		isStaged = new boolean[cells];
+	}
+	public CellQueue(CellQueue other)
+	{
+		ring = other.ring.clone();
+		head = other.head;
+		size = other.size;
+		queued = other.queued.clone();
+		staged = other.staged.clone();
+		stagedSize = other.stagedSize;
+		isStaged = other.isStaged.clone();
+	}
+	//a copy of the same kind
+	public CellQueue copy()
+	{
+		return new CellQueue(this);
+	}
+
+	public void add(int c)
+	{
+		add(c,0);
+	}
+	//rank is how urgent the cell looks (see PriorityCellQueue); only the priority queue cares
+	public void add(int c, int rank)
+	{
+		if (!isStaged[c])
+		{
+			isStaged[c] = true;
+			staged[stagedSize++] = c;
+		}
+	}
+	//everything staged goes on the queue, unless it's already there
+	public void enqueueNext()
+	{
+		for (int i = 0; i < stagedSize; i++)
+		{
+			int c = staged[i];
+			isStaged[c] = false;
+			if (!queued[c])
+			{
+				queued[c] = true;
+				push(c);
+			}
+		}
+		stagedSize = 0;
+	}
+	void push(int c)
+	{
+		ring[(head+size) % ring.length] = c;
+		size++;
+	}
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	public int size()
+	{
+		return size;
+	}
+	public int poll()
+	{
+		int c = ring[head];
+		queued[c] = false;
+		head = (head+1) % ring.length;
+		size--;
+		return c;
+	}
+	public void clear()
+	{
+		while (size > 0)
+			poll();
+		for (int i = 0; i < stagedSize; i++)
+			isStaged[staged[i]] = false;
+		stagedSize = 0;
+	}
+}
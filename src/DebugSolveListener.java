@@ -0,0 +1,30 @@
+//the old progress dump: the whole board and the queue size every 1000 cells, and the cell count at the end
+
+public class DebugSolveListener implements SolveListener
+{
+	SlitherSolverOO board;
+	int every;
+
+	public DebugSolveListener(SlitherSolverOO b)
+	{
+		this(b,1000);
+	}
+	public DebugSolveListener(SlitherSolverOO b, int e)
+	{
+		board = b;
+		every = e;
+	}
+	public void cellProcessed(int row, int col, int iteration)
+	{
+		if (iteration % every != 0) return;
+		board.print();
+		System.out.printf("Considering %d,%d\n",row,col);
+		System.out.printf("Queue size: %d\n",board.queue.size());
+		System.out.println();
+		System.out.println("===================");
+	}
+	public void finished(int iterations)
+	{
+		System.out.println(iterations);
+	}
+}
@@ -0,0 +1,245 @@
+//a quick first pass over a whole board, 64 columns at a time: every row of edges is a pair of bit planes
+//(known, and on), and the rules that only count edges are done with shifts and masks on whole words:
+//	a cell with as many edges on as its clue (a zero, to begin with) has the rest off,
+//	and one with as many off as 4 minus its clue has the rest on;
+//	a vertex with two edges on has the rest off, one with one on and one undecided has that one on,
+//	and one with none on and one undecided has that one off (it can't go anywhere).
+//these are swept over the board until nothing changes, and what they settled is handed to a SlitherSolverOO
+//before solve() (see presolve()), which then has that much less to do one cell at a time.
+//counts are bit-sliced: bit c of s0, s1, s2 are the low, middle and high bits of column c's count.
+//
+//horizontal edge row r (0-rows), column c is bit c of hOn[r]; the vertical edge below vertex (r,c) is bit c of vOn[r]
+
+public class EdgePlanes
+{
+	int rows, cols, words;
+	long[][] hOn, hKnown; //rows+1 rows of cols edges
+	long[][] vOn, vKnown; //rows rows of cols+1 edges
+	//per row of cells: which have a clue, the clue's bits, and 4 minus the clue's bits
+	long[][] clued, k0, k1, k2, q0, q1, q2;
+	long[] cellBits, vertexBits; //the columns that exist, cols of them and cols+1
+	int sweeps;
+
+	public EdgePlanes(int r, int c, byte[] clues)
+	{
+		rows = r;
+		cols = c;
+		words = (cols+1+63)/64;
+		hOn = new long[rows+1][words];
+		hKnown = new long[rows+1][words];
+		vOn = new long[rows][words];
+		vKnown = new long[rows][words];
+		clued = new long[rows][words];
+		k0 = new long[rows][words];
+		k1 = new long[rows][words];
+		k2 = new long[rows][words];
+		q0 = new long[rows][words];
+		q1 = new long[rows][words];
+		q2 = new long[rows][words];
+		cellBits = columns(cols);
+		vertexBits = columns(cols+1);
+		for (int row = 0; row < rows; row++)
+		{
+			for (int col = 0; col < cols; col++)
+			{
+				int clue = clues[row*cols+col];
+				if (clue > 4) continue;
+				long bit = 1L << col;
+				int i = col >>> 6;
+				clued[row][i] |= bit;
+				if ((clue & 1) != 0) k0[row][i] |= bit;
+				if ((clue & 2) != 0) k1[row][i] |= bit;
+				if ((clue & 4) != 0) k2[row][i] |= bit;
+				int rest = 4-clue;
+				if ((rest & 1) != 0) q0[row][i] |= bit;
+				if ((rest & 2) != 0) q1[row][i] |= bit;
+				if ((rest & 4) != 0) q2[row][i] |= bit;
+			}
+		}
+	}
+	public static EdgePlanes of(SlitherSolverOO board)
+	{
+		byte[] clues = new byte[board.rows*board.cols];
+		for (int i = 0; i < clues.length; i++)
+			clues[i] = board.cells[i/board.cols][i%board.cols].clue;
+		return new EdgePlanes(board.rows,board.cols,clues);
+	}
+	long[] columns(int count)
+	{
+		long[] bits = new long[words];
+		for (int i = 0; i < words; i++)
+		{
+			int left = count - i*64;
+			bits[i] = left >= 64 ? -1L : left <= 0 ? 0 : (1L << left) - 1;
+		}
+		return bits;
+	}
+
+	//sweep(), then tell board everything that was settled; returns how many edges that was
+	public static int presolve(SlitherSolverOO board)
+	{
+		EdgePlanes planes = of(board);
+		planes.sweep();
+		return planes.applyTo(board);
+	}
+
+	//the rules, over and over until a sweep settles nothing
+	public void sweep()
+	{
+		boolean changed = true;
+		while (changed)
+		{
+			sweeps++;
+			changed = false;
+			for (int r = 0; r < rows; r++)
+				changed |= cells(r);
+			for (int r = 0; r <= rows; r++)
+				changed |= vertices(r);
+		}
+	}
+
+	//the cells of row r
+	boolean cells(int r)
+	{
+		boolean changed = false;
+		long[] up = hOn[r], upK = hKnown[r], down = hOn[r+1], downK = hKnown[r+1], side = vOn[r], sideK = vKnown[r];
+		for (int i = 0; i < words; i++)
+		{
+			long has = clued[r][i];
+			if (has == 0) continue;
+			//left is bit c of side, right is bit c+1
+			long left = side[i], right = shiftDown(side,i);
+			long leftK = sideK[i], rightK = shiftDown(sideK,i);
+			long u = up[i], d = down[i];
+			long uOff = upK[i] & ~u, dOff = downK[i] & ~d, lOff = leftK & ~left, rOff = rightK & ~right;
+
+			//on == clue: the rest off
+			long a = u ^ d, ca = u & d, b = left ^ right, cb = left & right;
+			long s0 = a ^ b, s1 = ca ^ cb ^ (a & b), s2 = ca & cb;
+			long off = has & ~(s0 ^ k0[r][i]) & ~(s1 ^ k1[r][i]) & ~(s2 ^ k2[r][i]);
+			//off == 4 - clue: the rest on
+			a = uOff ^ dOff; ca = uOff & dOff; b = lOff ^ rOff; cb = lOff & rOff;
+			s0 = a ^ b; s1 = ca ^ cb ^ (a & b); s2 = ca & cb;
+			long on = has & ~(s0 ^ q0[r][i]) & ~(s1 ^ q1[r][i]) & ~(s2 ^ q2[r][i]);
+			if ((off | on) == 0) continue;
+
+			changed |= set(upK,up,i,off,on);
+			changed |= set(downK,down,i,off,on);
+			changed |= set(sideK,side,i,off,on);
+			//the right edges are one column over
+			changed |= set(sideK,side,i,off << 1,on << 1);
+			if (i+1 < words)
+				changed |= set(sideK,side,i+1,off >>> 63,on >>> 63);
+		}
+		return changed;
+	}
+	//the vertices of row r
+	boolean vertices(int r)
+	{
+		boolean changed = false;
+		long[] across = hOn[r], acrossK = hKnown[r];
+		for (int i = 0; i < words; i++)
+		{
+			long exists = vertexBits[i];
+			//missing edges (off the board) count as off
+			long u = r > 0 ? vOn[r-1][i] : 0, uK = r > 0 ? vKnown[r-1][i] : -1L;
+			long d = r < rows ? vOn[r][i] : 0, dK = r < rows ? vKnown[r][i] : -1L;
+			long right = across[i], rightK = acrossK[i] | ~cellBits[i];
+			//left is bit c-1 of across
+			long left = shiftUp(across,i), leftK = shiftUp(acrossK,i) | (i == 0 ? 1 : 0);
+			long uU = ~uK, dU = ~dK, lU = ~leftK, rU = ~rightK;
+
+			long a = u ^ d, ca = u & d, b = left ^ right, cb = left & right;
+			long on0 = a ^ b, on1 = ca ^ cb ^ (a & b), on2 = ca & cb;
+			a = uU ^ dU; ca = uU & dU; b = lU ^ rU; cb = lU & rU;
+			long un0 = a ^ b, un1 = ca ^ cb ^ (a & b), un2 = ca & cb;
+
+			long noneOn = ~on0 & ~on1 & ~on2, oneOn = on0 & ~on1 & ~on2, twoOn = ~on0 & on1 & ~on2;
+			long oneUnknown = un0 & ~un1 & ~un2;
+			long off = exists & (twoOn | noneOn & oneUnknown);
+			long on = exists & oneOn & oneUnknown;
+			if ((off | on) == 0) continue;
+
+			if (r > 0)
+				changed |= set(vKnown[r-1],vOn[r-1],i,off,on);
+			if (r < rows)
+				changed |= set(vKnown[r],vOn[r],i,off,on);
+			changed |= set(acrossK,across,i,off & cellBits[i],on & cellBits[i]);
+			//the left edges are one column back
+			changed |= set(acrossK,across,i,off >>> 1,on >>> 1);
+			if (i > 0)
+				changed |= set(acrossK,across,i-1,off << 63,on << 63);
+		}
+		return changed;
+	}
+	//bit c of the result is bit c+1 of a
+	static long shiftDown(long[] a, int i)
+	{
+		return (a[i] >>> 1) | (i+1 < a.length ? a[i+1] << 63 : 0);
+	}
+	//bit c of the result is bit c-1 of a
+	static long shiftUp(long[] a, int i)
+	{
+		return (a[i] << 1) | (i > 0 ? a[i-1] >>> 63 : 0);
+	}
+	//the undecided ones among off go off, then the undecided ones among on go on
+	static boolean set(long[] known, long[] state, int i, long off, long on)
+	{
+		long before = known[i];
+		known[i] |= off;
+		long newlyOn = on & ~known[i];
+		known[i] |= newlyOn;
+		state[i] |= newlyOn;
+		return known[i] != before;
+	}
+
+	public boolean isKnown(int row, int col)
+	{
+		long[] plane = row%2 == 0 ? hKnown[row/2] : vKnown[row/2];
+		return (plane[col >>> 6] & 1L << col) != 0;
+	}
+	//edges[row][col], as in SlitherSolverOO
+	public boolean isOn(int row, int col)
+	{
+		long[] plane = row%2 == 0 ? hOn[row/2] : vOn[row/2];
+		return (plane[col >>> 6] & 1L << col) != 0;
+	}
+	public int known()
+	{
+		int count = 0;
+		for (long[] row : hKnown)
+			for (int i = 0; i < words; i++)
+				count += Long.bitCount(row[i] & cellBits[i]);
+		for (long[] row : vKnown)
+			for (int i = 0; i < words; i++)
+				count += Long.bitCount(row[i] & vertexBits[i]);
+		return count;
+	}
+
+	//what the sweep settled, as if the rules had decided it there; board's solve() takes it from there
+	public int applyTo(SlitherSolverOO board)
+	{
+		int count = 0;
+		for (int r = 0; r < rows*2+1; r++)
+		{
+			for (int c = 0; c < (r%2 == 0 ? cols : cols+1); c++)
+			{
+				if (!isKnown(r,c) || board.edges[r][c].state != SlitherSolverOO.UNKNOWN)
+					continue;
+				if (isOn(r,c))
+					board.addEdge(board.edges[r][c]);
+				else
+					board.removeEdge(board.edges[r][c]);
+				count++;
+			}
+		}
+		board.enqueueNext();
+		return count;
+	}
+
+	public String toString()
+	{
+		return String.format("edge planes: %d of %d edges settled in %d sweeps",known(),
+			(rows+1)*cols + rows*(cols+1),sweeps);
+	}
+}
@@ -0,0 +1,224 @@
+//pulls the clues out of a saved puzzle page in one pass, without holding on to the page.
+//the board is a "board-back" div full of absolutely positioned "loop-task-cell" divs (clue or empty), usually row by row,
+//and the loop itself starts at the first "loop-line". rows and cols come from how many different
+//top and left offsets the cells have, and each cell goes where its offsets put it, whatever order the page has them in.
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class HtmlBoardReader
+{
+	//looks for one fixed string in a stream of bytes, a byte at a time (Knuth-Morris-Pratt)
+	static class Needle
+	{
+		byte[] text;
+		int[] fail;
+		int matched;
+
+		public Needle(String t)
+		{
+			text = t.getBytes(StandardCharsets.US_ASCII);
+			fail = new int[text.length+1];
+			fail[0] = -1;
+			for (int i = 1, k = -1; i <= text.length; i++)
+			{
+				while (k >= 0 && text[k] != text[i-1])
+					k = fail[k];
+				fail[i] = ++k;
+			}
+		}
+		//true when b finishes a match
+		boolean feed(int b)
+		{
+			while (matched >= 0 && text[matched] != b)
+				matched = fail[matched];
+			matched++;
+			if (matched == text.length)
+			{
+				matched = 0;
+				return true;
+			}
+			return false;
+		}
+		void reset()
+		{
+			matched = 0;
+		}
+	}
+
+	static final String MALFORMED = "no puzzle board on the page";
+
+	ReadableByteChannel in;
+	ByteBuffer buffer;
+	Needle boardBack = new Needle("class=\"board-back\"");
+	Needle taskCell = new Needle("class=\"loop-task-cell\"");
+	Needle loopLine = new Needle("class=\"loop-line");
+	Needle top = new Needle("top:");
+	Needle left = new Needle("left:");
+
+	int rows, cols;
+	byte[] clues = new byte[1024];
+	int cells;
+	//each cell's offsets, in page order, until read() puts the clues in place
+	int[] tops = new int[1024];
+	int[] lefts = new int[1024];
+
+	HtmlBoardReader(ReadableByteChannel i, ByteBuffer b)
+	{
+		in = i;
+		buffer = b;
+	}
+
+	public static HtmlBoardReader read(ReadableByteChannel in) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		buffer.flip();
+		HtmlBoardReader r = new HtmlBoardReader(in,buffer);
+		r.read();
+		return r;
+	}
+	//a page that's already in memory
+	public static HtmlBoardReader read(String page) throws IOException
+	{
+		HtmlBoardReader r = new HtmlBoardReader(null,ByteBuffer.wrap(page.getBytes(StandardCharsets.ISO_8859_1)));
+		r.read();
+		return r;
+	}
+
+	//the board, clues filled in and ready to solve
+	public SlitherSolverOO board()
+	{
+		return SlitherSolverOO.fromClues(rows,cols,clues);
+	}
+	//the same board as "rows cols" + clue grid text
+	public String text()
+	{
+		StringBuilder out = new StringBuilder(rows*(cols+1)+16);
+		out.append(rows).append(' ').append(cols);
+		for (int i = 0; i < rows*cols; i++)
+		{
+			if (i%cols == 0)
+				out.append('\n');
+			out.append(clues[i] == SlitherSolverOO.NO_INFO ? '.' : (char)('0'+clues[i]));
+		}
+		return out.toString();
+	}
+
+	void read() throws IOException
+	{
+		if (!skipTo(boardBack))
+			throw new IOException(MALFORMED);
+		while (true)
+		{
+			//the next cell, unless the loop (or the end) comes first
+			taskCell.reset();
+			loopLine.reset();
+			int b;
+			boolean found = false;
+			while ((b = next()) >= 0)
+			{
+				if (loopLine.feed(b)) break;
+				if (taskCell.feed(b))
+				{
+					found = true;
+					break;
+				}
+			}
+			if (!found) break;
+
+			if (!skipTo(top))
+				throw new IOException("cell " + cells + ": no top offset");
+			int y = readNumber();
+			if (!skipTo(left))
+				throw new IOException("cell " + cells + ": no left offset");
+			int x = readNumber();
+			while ((b = next()) >= 0 && b != '>');
+			b = next();
+			byte clue = b >= '0' && b <= '9' ? (byte)(b-'0') : SlitherSolverOO.NO_INFO;
+
+			if (cells == clues.length)
+			{
+				clues = Arrays.copyOf(clues,cells*2);
+				tops = Arrays.copyOf(tops,cells*2);
+				lefts = Arrays.copyOf(lefts,cells*2);
+			}
+			tops[cells] = y;
+			lefts[cells] = x;
+			clues[cells++] = clue;
+		}
+		if (cells == 0)
+			throw new IOException(MALFORMED);
+		int[] rowTops = distinct(tops,cells);
+		int[] colLefts = distinct(lefts,cells);
+		rows = rowTops.length;
+		cols = colLefts.length;
+		if ((long)rows*cols != cells)
+			throw new IOException(cells + " cells don't make a " + rows + "x" + cols + " board");
+		byte[] placed = new byte[cells];
+		boolean[] filled = new boolean[cells];
+		for (int i = 0; i < cells; i++)
+		{
+			int at = Arrays.binarySearch(rowTops,tops[i])*cols + Arrays.binarySearch(colLefts,lefts[i]);
+			if (filled[at])
+				throw new IOException("cell " + i + ": another cell is already at top " + tops[i] + ", left " + lefts[i]);
+			filled[at] = true;
+			placed[at] = clues[i];
+		}
+		clues = placed;
+	}
+	//the different values among the first n, in order
+	static int[] distinct(int[] values, int n)
+	{
+		int[] sorted = Arrays.copyOf(values,n);
+		Arrays.sort(sorted);
+		int count = 0;
+		for (int i = 0; i < n; i++)
+			if (i == 0 || sorted[i] != sorted[i-1])
+				sorted[count++] = sorted[i];
+		return Arrays.copyOf(sorted,count);
+	}
+	boolean skipTo(Needle needle) throws IOException
+	{
+		needle.reset();
+		int b;
+		while ((b = next()) >= 0)
+			if (needle.feed(b))
+				return true;
+		return false;
+	}
+	//digits after some spaces; whatever comes after them is dropped
+	int readNumber() throws IOException
+	{
+		int b = next();
+		while (b == ' ' || b == '\t' || b == '\n' || b == '\r')
+			b = next();
+		int value = 0;
+		while (b >= '0' && b <= '9')
+		{
+			value = value*10 + (b-'0');
+			b = next();
+		}
+		return value;
+	}
+	//-1 at the end
+	int next() throws IOException
+	{
+		if (!buffer.hasRemaining())
+		{
+			if (in == null)
+				return -1;
+			buffer.clear();
+			int n;
+			do {
+				n = in.read(buffer);
+			} while (n == 0);
+			buffer.flip();
+			if (n < 0)
+				return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+}
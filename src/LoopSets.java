@@ -0,0 +1,166 @@
+//loop segments as disjoint sets of colors, so joining two segments doesn't mean repainting one of them.
+//colors are handed out from 2 up (0 and 1 being UNKNOWN and OFF), and two colors are the same segment iff find() agrees.
+//the root of each set also knows the segment's two end vertices and how many edges it has.
+//vertices are given as row*(cols+1)+col.
+//with a Trail, every change is logged so the board can take it back, and find() leaves paths as they are
+
+import java.util.Arrays;
+
+public class LoopSets
+{
+	int[] parent;
+	int[] size; //colors in the set, for union by size
+	int[] length; //edges in the segment
+	int[] endA, endB;
+	int next;
+	Trail trail;
+
+	public LoopSets(int capacity)
+	{
+		capacity = Math.max(capacity,4);
+		parent = new int[capacity];
+		size = new int[capacity];
+		length = new int[capacity];
+		endA = new int[capacity];
+		endB = new int[capacity];
+		next = 2;
+	}
+	public LoopSets(LoopSets other)
+	{
+		parent = other.parent.clone();
+		size = other.size.clone();
+		length = other.length.clone();
+		endA = other.endA.clone();
+		endB = other.endB.clone();
+		next = other.next;
+	}
+
+	//no segments at all, keeping the arrays
+	public void clear()
+	{
+		next = 2;
+	}
+
+	public int find(int color)
+	{
+		if (trail != null)
+		{
+			//union by size keeps these short anyway
+			while (parent[color] != color)
+				color = parent[color];
+			return color;
+		}
+		while (parent[color] != color)
+		{
+			parent[color] = parent[parent[color]]; //path halving
+			color = parent[color];
+		}
+		return color;
+	}
+	public boolean same(int a, int b)
+	{
+		return find(a) == find(b);
+	}
+	//a new segment, one edge long
+	public int create(int v1, int v2)
+	{
+		if (next == parent.length)
+		{
+			int capacity = parent.length*2;
+			parent = Arrays.copyOf(parent,capacity);
+			size = Arrays.copyOf(size,capacity);
+			length = Arrays.copyOf(length,capacity);
+			endA = Arrays.copyOf(endA,capacity);
+			endB = Arrays.copyOf(endB,capacity);
+		}
+		if (trail != null)
+			trail.push(Trail.NEXT,0,next);
+		int color = next++;
+		parent[color] = color;
+		size[color] = 1;
+		length[color] = 1;
+		endA[color] = v1;
+		endB[color] = v2;
+		return color;
+	}
+	//the segment grows by an edge from its end "from" out to the uncolored vertex "to"; returns the segment's root
+	public int extend(int color, int from, int to)
+	{
+		int root = find(color);
+		if (endA[root] == from)
+			set(Trail.END_A,endA,root,to);
+		else if (endB[root] == from)
+			set(Trail.END_B,endB,root,to);
+		set(Trail.LENGTH,length,root,length[root]+1);
+		return root;
+	}
+	//an edge from the end fromA of one segment to the end fromB of another joins them; returns the new root
+	public int join(int a, int fromA, int b, int fromB)
+	{
+		int rootA = find(a);
+		int rootB = find(b);
+		int endOfA = otherEnd(rootA,fromA);
+		int endOfB = otherEnd(rootB,fromB);
+		if (size[rootA] < size[rootB])
+		{
+			int swap = rootA;
+			rootA = rootB;
+			rootB = swap;
+		}
+		set(Trail.PARENT,parent,rootB,rootA);
+		set(Trail.SIZE,size,rootA,size[rootA]+size[rootB]);
+		set(Trail.LENGTH,length,rootA,length[rootA]+length[rootB]+1);
+		set(Trail.END_A,endA,rootA,endOfA);
+		set(Trail.END_B,endB,rootA,endOfB);
+		return rootA;
+	}
+	//an edge between the two ends of the same segment makes it a loop
+	public int close(int color)
+	{
+		int root = find(color);
+		set(Trail.LENGTH,length,root,length[root]+1);
+		return root;
+	}
+	void set(int kind, int[] array, int index, int value)
+	{
+		if (trail != null)
+			trail.push(kind,index,array[index]);
+		array[index] = value;
+	}
+	//puts back one change the trail logged
+	void undo(int kind, int index, int old)
+	{
+		switch (kind)
+		{
+			case Trail.PARENT: parent[index] = old; break;
+			case Trail.SIZE: size[index] = old; break;
+			case Trail.LENGTH: length[index] = old; break;
+			case Trail.END_A: endA[index] = old; break;
+			case Trail.END_B: endB[index] = old; break;
+			case Trail.NEXT: next = old; break;
+		}
+	}
+	//what a change of that kind would log, as it is now
+	int value(int kind, int index)
+	{
+		switch (kind)
+		{
+			case Trail.PARENT: return parent[index];
+			case Trail.SIZE: return size[index];
+			case Trail.LENGTH: return length[index];
+			case Trail.END_A: return endA[index];
+			case Trail.END_B: return endB[index];
+			default: return next;
+		}
+	}
+	//the end of the segment that isn't this one
+	public int otherEnd(int color, int end)
+	{
+		int root = find(color);
+		return endA[root] == end ? endB[root] : endA[root];
+	}
+	public int length(int color)
+	{
+		return length[find(color)];
+	}
+}
@@ -0,0 +1,116 @@
+//SlitherSearch, but once both sides of a guess survive probing, they get explored at the same time.
+//each branch is a fork-join task with its own board copy, so idle workers steal whichever branches are waiting,
+//and the first branch to find a loop tells all the others to give up.
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ParallelSlitherSearch
+{
+	SlitherSearch.Heuristic heuristic;
+	ForkJoinPool pool;
+	AtomicBoolean found = new AtomicBoolean();
+	//how the last solve() went, summed over all branches
+	AtomicLong nodes = new AtomicLong();
+	AtomicLong contradictions = new AtomicLong();
+	AtomicInteger maxDepth = new AtomicInteger();
+	long nanos;
+
+	public ParallelSlitherSearch()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	public ParallelSlitherSearch(int parallelism)
+	{
+		this(SlitherSearch.MOST_CONSTRAINED_VERTEX,parallelism);
+	}
+	public ParallelSlitherSearch(SlitherSearch.Heuristic h, int parallelism)
+	{
+		this(h,new ForkJoinPool(parallelism));
+	}
+	public ParallelSlitherSearch(SlitherSearch.Heuristic h, ForkJoinPool p)
+	{
+		heuristic = h;
+		pool = p;
+	}
+
+	//returns a solved board, or null if there is no solution.
+	//only one solve() at a time per ParallelSlitherSearch
+	public SlitherSolverOO solve(SlitherSolverOO board)
+	{
+		found.set(false);
+		nodes.set(0);
+		contradictions.set(0);
+		maxDepth.set(0);
+		long start = System.nanoTime();
+		SlitherSolverOO result = pool.invoke(new Branch(board,0));
+		nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	class Branch extends RecursiveTask<SlitherSolverOO>
+	{
+		private static final long serialVersionUID = 1L;
+
+		SlitherSolverOO board;
+		int depth;
+
+		public Branch(SlitherSolverOO b, int d)
+		{
+			board = b;
+			depth = d;
+		}
+		protected SlitherSolverOO compute()
+		{
+			if (found.get())
+				return null;
+			Worker worker = new Worker();
+			SlitherSolverOO result = worker.search(board,depth);
+			board = null; //done with it; don't keep it alive while others join
+			if (result != null)
+				found.set(true);
+			nodes.addAndGet(worker.nodes);
+			contradictions.addAndGet(worker.contradictions);
+			maxDepth.accumulateAndGet(worker.maxDepth,Math::max);
+			return result;
+		}
+	}
+
+	//the sequential search, except that the off side of every guess is forked off for someone else to pick up
+	class Worker extends SlitherSearch
+	{
+		public Worker()
+		{
+			super(ParallelSlitherSearch.this.heuristic);
+		}
+		SlitherSolverOO branch(SlitherSolverOO board, SlitherSolverOO.Edge e, int depth)
+		{
+			//the off side gets a copy of its own, since it may be worked on at the same time
+			SlitherSolverOO off = new SlitherSolverOO(board);
+			off.assume(off.edges[e.row][e.col],false);
+			Branch other = new Branch(off,depth+1);
+			other.fork();
+			board.assume(e,true);
+			SlitherSolverOO result = search(board,depth+1);
+			if (result != null)
+			{
+				found.set(true);
+				return result;
+			}
+			return other.join();
+		}
+		boolean cancelled()
+		{
+			return found.get();
+		}
+	}
+
+	public String report()
+	{
+		return String.format("parallel search (%d threads): %d nodes, %d contradictions, max depth %d, %.3f ms",
+			pool.getParallelism(),nodes.get(),contradictions.get(),maxDepth.get(),nanos/1e6);
+	}
+}
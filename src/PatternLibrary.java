@@ -0,0 +1,404 @@
+//local deductions as data rather than code: each pattern is a small window of the board, drawn the way
+//print(true,false) draws it, before and after. the before picture says what has to be there (clues, edges on or x'd out),
+//and anything the after picture adds is what follows. for instance, two threes side by side:
+//	# adjacent threes
+//	+ + +
+//	 3 3
+//	+ + +
+//	=>
+//	+ + +
+//	|3|3|
+//	+ + +
+//in a cell, a digit is that clue, . is no clue, and a space or ? is anything. an edge left blank can be anything.
+//lines starting with // are comments.
+//each pattern is tried in all 8 orientations (rotations and mirror images), and patterns are kept by the shape of their
+//window and which cells in it have to have particular clues, then looked up by those clues, so finding the ones that
+//could apply somewhere is one table lookup per shape;
+//what's left is checking edges, which are bits (numbered row*(width+1)+col, as in edges[][]) compared a window at a time.
+//the bundled library is patterns.txt; anything in the same format can be loaded instead.
+//see SlitherSolverOO.solve(), which tries them around every cell it works on
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class PatternLibrary
+{
+	static final String BUNDLED = "/patterns.txt";
+	static final int UNKNOWN = SlitherSolverOO.UNKNOWN;
+	static final int OFF = SlitherSolverOO.OFF;
+	static final int NO_INFO = SlitherSolverOO.NO_INFO;
+	static final int ANY = -1; //a cell that can have any clue
+
+	//one pattern in one orientation
+	static class Template
+	{
+		String name;
+		long needOn, needOff;
+		long setOn, setOff;
+	}
+	//every template with a window of one shape that cares about the clues in the same cells, by those clues (see code())
+	static class Frame
+	{
+		int height, width;
+		long cares; //bit row*width+col
+		//where each bit is in the window: edge bits as rows and columns of edges[][], cell bits of cells[][]
+		int[] edgeRow = new int[64], edgeCol = new int[64], cellRow = new int[64], cellCol = new int[64];
+		//open addressing: keys[i] == 0 is empty, which code() never is
+		long[] keys = new long[16];
+		Template[][] values = new Template[16][];
+		long[] reads = new long[16]; //the edges the templates in a slot look at, between them
+		int size;
+
+		public Frame(int h, int w, long c)
+		{
+			height = h;
+			width = w;
+			cares = c;
+			for (int bit = 0; bit < 64; bit++)
+			{
+				edgeRow[bit] = bit/(width+1);
+				edgeCol[bit] = bit%(width+1);
+				cellRow[bit] = bit/width;
+				cellCol[bit] = bit%width;
+			}
+		}
+		//-1 if nothing's there
+		int find(long key)
+		{
+			int mask = keys.length-1;
+			for (int i = slot(key) & mask; keys[i] != 0; i = (i+1) & mask)
+				if (keys[i] == key)
+					return i;
+			return -1;
+		}
+		void add(long key, Template t)
+		{
+			if ((size+1)*2 > keys.length)
+				grow();
+			int mask = keys.length-1;
+			int i = slot(key) & mask;
+			while (keys[i] != 0 && keys[i] != key)
+				i = (i+1) & mask;
+			if (keys[i] == 0)
+			{
+				keys[i] = key;
+				values[i] = new Template[] {t};
+				size++;
+			}
+			else
+			{
+				values[i] = Arrays.copyOf(values[i],values[i].length+1);
+				values[i][values[i].length-1] = t;
+			}
+			reads[i] |= t.needOn | t.needOff | t.setOn | t.setOff;
+		}
+		void grow()
+		{
+			long[] oldKeys = keys;
+			Template[][] oldValues = values;
+			long[] oldReads = reads;
+			keys = new long[oldKeys.length*2];
+			values = new Template[oldKeys.length*2][];
+			reads = new long[oldKeys.length*2];
+			int mask = keys.length-1;
+			for (int j = 0; j < oldKeys.length; j++)
+			{
+				if (oldKeys[j] == 0)
+					continue;
+				int i = slot(oldKeys[j]) & mask;
+				while (keys[i] != 0)
+					i = (i+1) & mask;
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+				reads[i] = oldReads[j];
+			}
+		}
+		static int slot(long key)
+		{
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int)(h ^ (h >>> 32));
+		}
+	}
+
+	Frame[] frames = new Frame[0];
+	int patterns, templates;
+
+	public static PatternLibrary bundled()
+	{
+		InputStream in = PatternLibrary.class.getResourceAsStream(BUNDLED);
+		if (in == null)
+			throw new IllegalStateException(BUNDLED + " missing from the classpath");
+		try (InputStream i = in) {
+			return load(i);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	public static PatternLibrary load(InputStream in) throws IOException
+	{
+		PatternLibrary library = new PatternLibrary();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in,StandardCharsets.UTF_8));
+		ArrayList<String> block = new ArrayList<String>();
+		String name = null;
+		int line = 0, start = 0;
+		String s;
+		while ((s = reader.readLine()) != null)
+		{
+			line++;
+			if (s.startsWith("//"))
+				continue;
+			if (s.startsWith("#"))
+			{
+				if (name != null)
+					library.add(name,block,start);
+				name = s.substring(1).trim();
+				block.clear();
+				start = line+1;
+			}
+			else if (name != null)
+				block.add(s);
+			else if (!s.trim().isEmpty())
+				throw error(line,"a pattern starts with a # line naming it");
+		}
+		if (name != null)
+			library.add(name,block,start);
+		return library;
+	}
+	static IllegalArgumentException error(int line, String message)
+	{
+		return new IllegalArgumentException("patterns, line " + line + ": " + message);
+	}
+
+	//lines is the drawing before, =>, and the drawing after, starting at line start of the file
+	void add(String name, ArrayList<String> lines, int start)
+	{
+		int end = lines.size();
+		while (end > 0 && lines.get(end-1).trim().isEmpty())
+			end--;
+		int arrow = -1;
+		for (int i = 0; i < end; i++)
+			if (lines.get(i).trim().equals("=>"))
+				arrow = i;
+		if (arrow < 0)
+			throw error(start,"no => in " + name);
+		char[][] before = grid(lines.subList(0,arrow),start);
+		char[][] after = grid(lines.subList(arrow+1,end),start+arrow+1);
+		if (before.length != after.length || before[0].length != after[0].length)
+			throw error(start,name + " is a different size after");
+		patterns++;
+
+		HashSet<String> seen = new HashSet<String>();
+		for (int mirror = 0; mirror < 2; mirror++)
+		{
+			for (int turn = 0; turn < 4; turn++)
+			{
+				if (seen.add(Arrays.deepToString(before) + Arrays.deepToString(after)))
+					compile(name,before,after,start);
+				before = rotate(before);
+				after = rotate(after);
+			}
+			before = mirror(before);
+			after = mirror(after);
+		}
+	}
+	//padded out to the widest line; an odd number of rows and columns, vertices where they belong
+	static char[][] grid(java.util.List<String> lines, int start)
+	{
+		int width = 0;
+		for (String s : lines)
+			width = Math.max(width,s.length());
+		if (lines.size()%2 == 0 || lines.size() < 3)
+			throw error(start,"a drawing is an odd number of lines, at least 3");
+		width |= 1;
+		char[][] grid = new char[lines.size()][width];
+		for (int r = 0; r < grid.length; r++)
+		{
+			Arrays.fill(grid[r],' ');
+			lines.get(r).getChars(0,lines.get(r).length(),grid[r],0);
+			for (int c = 0; c < width; c++)
+			{
+				char ch = grid[r][c];
+				boolean ok;
+				if (r%2 == 0 && c%2 == 0)
+					ok = ch == '+' || ch == '.';
+				else if (r%2 == 0)
+					ok = ch == ' ' || ch == 'x' || ch == '-';
+				else if (c%2 == 0)
+					ok = ch == ' ' || ch == 'x' || ch == '|';
+				else
+					ok = ch == ' ' || ch == '?' || ch == '.' || (ch >= '0' && ch <= '4');
+				if (!ok)
+					throw error(start+r,"didn't expect '" + ch + "' in column " + (c+1));
+			}
+		}
+		return grid;
+	}
+	//a quarter turn clockwise; horizontal edges become vertical and the other way around
+	static char[][] rotate(char[][] g)
+	{
+		char[][] turned = new char[g[0].length][g.length];
+		for (int r = 0; r < turned.length; r++)
+		{
+			for (int c = 0; c < turned[0].length; c++)
+			{
+				char ch = g[g.length-1-c][r];
+				turned[r][c] = ch == '-' ? '|' : ch == '|' ? '-' : ch;
+			}
+		}
+		return turned;
+	}
+	//left to right
+	static char[][] mirror(char[][] g)
+	{
+		char[][] flipped = new char[g.length][g[0].length];
+		for (int r = 0; r < g.length; r++)
+			for (int c = 0; c < g[0].length; c++)
+				flipped[r][c] = g[r][g[0].length-1-c];
+		return flipped;
+	}
+
+	void compile(String name, char[][] before, char[][] after, int start)
+	{
+		int height = before.length/2, width = before[0].length/2;
+		if ((height*2+1)*(width+1) > 64 || height*width*3 > 60)
+			throw error(start,name + " is too big; a window's edges, and its clues, have to fit in a long");
+		Template t = new Template();
+		t.name = name;
+		int[] clues = new int[height*width];
+		for (int r = 0; r < before.length; r++)
+		{
+			for (int c = 0; c < before[0].length; c++)
+			{
+				char was = before[r][c], is = after[r][c];
+				if (r%2 == 1 && c%2 == 1)
+				{
+					if (was != is)
+						throw error(start,name + " can't change a clue");
+					clues[(r/2)*width+c/2] = was == '.' ? NO_INFO : was >= '0' && was <= '4' ? was-'0' : ANY;
+				}
+				else if (r%2 != c%2)
+				{
+					long bit = 1L << (r*(width+1)+c/2);
+					if (was == 'x')
+						t.needOff |= bit;
+					else if (was != ' ')
+						t.needOn |= bit;
+					if (was != ' ' && was != is)
+						throw error(start,name + " can't undo an edge");
+					if (was == ' ' && is == 'x')
+						t.setOff |= bit;
+					else if (was == ' ' && is != ' ')
+						t.setOn |= bit;
+				}
+			}
+		}
+		if ((t.setOn | t.setOff) == 0)
+			throw error(start,name + " doesn't deduce anything");
+		templates++;
+		long cares = 0;
+		long code = 1;
+		for (int i = 0; i < clues.length; i++)
+		{
+			if (clues[i] != ANY)
+			{
+				cares |= 1L << i;
+				code = code << 3 | clues[i];
+			}
+		}
+		frame(height,width,cares).add(code,t);
+	}
+	Frame frame(int height, int width, long cares)
+	{
+		for (Frame f : frames)
+			if (f.height == height && f.width == width && f.cares == cares)
+				return f;
+		frames = Arrays.copyOf(frames,frames.length+1);
+		return frames[frames.length-1] = new Frame(height,width,cares);
+	}
+
+	//every window with c in it that a pattern fits, applied; returns whether any edges changed
+	public boolean apply(SlitherSolverOO board, SlitherSolverOO.Cell c)
+	{
+		boolean changed = false;
+		for (Frame f : frames)
+		{
+			for (int top = Math.max(0,c.row-f.height+1); top <= c.row && top+f.height <= board.rows; top++)
+			{
+				for (int left = Math.max(0,c.col-f.width+1); left <= c.col && left+f.width <= board.cols; left++)
+				{
+					int i = f.find(code(board,top,left,f));
+					if (i >= 0)
+						changed |= apply(board,top,left,f,f.values[i],f.reads[i]);
+				}
+			}
+		}
+		return changed;
+	}
+	//the clues of the cells f cares about, 3 bits each, after a 1 (so no code is 0)
+	static long code(SlitherSolverOO board, int top, int left, Frame f)
+	{
+		long code = 1;
+		for (long bits = f.cares; bits != 0; bits &= bits-1)
+		{
+			int i = Long.numberOfTrailingZeros(bits);
+			code = code << 3 | board.cells[top+f.cellRow[i]][left+f.cellCol[i]].clue;
+		}
+		return code;
+	}
+	//the first template that fits and still has something to add, over and over, since each one's edges can make
+	//another fit
+	boolean apply(SlitherSolverOO board, int top, int left, Frame f, Template[] found, long reads)
+	{
+		boolean changed = false;
+		while (!board.contradiction)
+		{
+			long on = 0, off = 0;
+			for (long bits = reads; bits != 0; bits &= bits-1)
+			{
+				int bit = Long.numberOfTrailingZeros(bits);
+				int state = board.edges[top*2+f.edgeRow[bit]][left+f.edgeCol[bit]].state;
+				if (state == OFF)
+					off |= 1L << bit;
+				else if (state != UNKNOWN)
+					on |= 1L << bit;
+			}
+			Template fits = null;
+			for (Template t : found)
+			{
+				if ((on & t.needOn) == t.needOn && (off & t.needOff) == t.needOff &&
+					((t.setOn | t.setOff) & ~(on | off)) != 0)
+				{
+					fits = t;
+					break;
+				}
+			}
+			if (fits == null)
+				break;
+			if ((fits.setOn & off) != 0 || (fits.setOff & on) != 0)
+				board.contradiction = true;
+			for (long bits = (fits.setOn | fits.setOff) & ~(on | off); bits != 0; bits &= bits-1)
+			{
+				int bit = Long.numberOfTrailingZeros(bits);
+				SlitherSolverOO.Edge e = board.edges[top*2+f.edgeRow[bit]][left+f.edgeCol[bit]];
+				if ((fits.setOn & 1L << bit) != 0)
+					board.addEdge(e);
+				else
+					board.removeEdge(e);
+			}
+			changed = true;
+		}
+		return changed;
+	}
+
+	public String toString()
+	{
+		return String.format("%d patterns, %d templates in %d tables",patterns,templates,frames.length);
+	}
+}
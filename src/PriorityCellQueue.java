@@ -0,0 +1,65 @@
+//a CellQueue that hands out the highest ranked cells first.
+//the solvers rank clued cells above empty ones, and among those the ones with the most decided edges:
+//they're the most likely to force something, so the fixpoint comes in fewer iterations.
+//one ring per rank; a cell's rank is the highest it was given since it was last staged
+
+public class PriorityCellQueue extends CellQueue
+{
+	int[][] buckets;
+	int[] bucketHead, bucketSize;
+	int[] stagedRank;
+	public static final int RANKS = 6;
+
+	public PriorityCellQueue(int cells)
+	{
+		super(cells);
+		buckets = new int[RANKS][Math.max(cells,1)];
+		bucketHead = new int[RANKS];
+		bucketSize = new int[RANKS];
+		stagedRank = new int[cells];
+	}
+	public PriorityCellQueue(PriorityCellQueue other)
+	{
+		super(other);
+		buckets = new int[RANKS][];
+		for (int k = 0; k < RANKS; k++)
+			buckets[k] = other.buckets[k].clone();
+		bucketHead = other.bucketHead.clone();
+		bucketSize = other.bucketSize.clone();
+		stagedRank = other.stagedRank.clone();
+	}
+	public CellQueue copy()
+	{
+		return new PriorityCellQueue(this);
+	}
+
+	public void add(int c, int rank)
+	{
+		if (!isStaged[c])
+			stagedRank[c] = rank;
+		else
+			stagedRank[c] = Math.max(stagedRank[c],rank);
+		super.add(c,rank);
+	}
+	void push(int c)
+	{
+		int k = stagedRank[c];
+		int[] bucket = buckets[k];
+		bucket[(bucketHead[k]+bucketSize[k]) % bucket.length] = c;
+		bucketSize[k]++;
+		size++;
+	}
+	public int poll()
+	{
+		int k = RANKS-1;
+		while (bucketSize[k] == 0)
+			k--;
+		int[] bucket = buckets[k];
+		int c = bucket[bucketHead[k]];
+		bucketHead[k] = (bucketHead[k]+1) % bucket.length;
+		bucketSize[k]--;
+		size--;
+		queued[c] = false;
+		return c;
+	}
+}
@@ -0,0 +1,268 @@
+//lots of puzzles in one file, packed 3 bits a clue, with an index up front so any one of them can be read straight away.
+//the file is mapped, not read, and boards are built straight out of the mapped bytes.
+//	"SLAR", version, count					(4 bytes, int, int)
+//	count index entries: offset, rows, cols	(long, int, int; offset from the start of the file)
+//	the clues of each puzzle, row by row, 3 bits each from the low bits of each byte up (0-4, or NO_INFO)
+//all big-endian. reading from several threads at once is fine: nothing moves the buffer's position.
+//
+//java PuzzleArchive archive input...	packs text files (any number of puzzles each), saved pages, or directories of them
+//java PuzzleArchive archive				lists what's in an archive
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class PuzzleArchive
+{
+	static final int MAGIC = 0x534C4152; //"SLAR"
+	static final int VERSION = 1;
+	static final int HEADER = 12;
+	static final int ENTRY = 16;
+
+	MappedByteBuffer data;
+	int count;
+
+	PuzzleArchive(MappedByteBuffer d) throws IOException
+	{
+		data = d;
+		if (data.limit() < HEADER || data.getInt(0) != MAGIC)
+			throw new IOException("not a puzzle archive");
+		if (data.getInt(4) != VERSION)
+			throw new IOException("puzzle archive version " + data.getInt(4) + ", expected " + VERSION);
+		count = data.getInt(8);
+		if (count < 0 || HEADER + (long)count*ENTRY > data.limit())
+			throw new IOException("puzzle archive index is cut short");
+	}
+	public static PuzzleArchive open(Path file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file,StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file + " is too big to map in one go");
+			return new PuzzleArchive(channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size()));
+		}
+	}
+	//does the file start like an archive?
+	public static boolean isArchive(Path file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file,StandardOpenOption.READ)) {
+			ByteBuffer start = ByteBuffer.allocate(4);
+			while (start.hasRemaining() && channel.read(start) > 0);
+			return !start.hasRemaining() && start.getInt(0) == MAGIC;
+		}
+	}
+
+	public int size()
+	{
+		return count;
+	}
+	public int rows(int i)
+	{
+		return data.getInt(entry(i)+8);
+	}
+	public int cols(int i)
+	{
+		return data.getInt(entry(i)+12);
+	}
+	//puzzle i, ready to solve
+	public SlitherSolverOO board(int i)
+	{
+		int offset = offset(i);
+		return SlitherSolverOO.fromPacked(rows(i),cols(i),data,offset);
+	}
+	//clues[row*cols+col] of puzzle i
+	public byte[] clues(int i)
+	{
+		int offset = offset(i);
+		byte[] clues = new byte[rows(i)*cols(i)];
+		unpack(data,offset,clues.length,clues);
+		return clues;
+	}
+	int entry(int i)
+	{
+		if (i < 0 || i >= count)
+			throw new IndexOutOfBoundsException("puzzle " + i + " of " + count);
+		return HEADER + i*ENTRY;
+	}
+	//where puzzle i's clues start, once its entry has been checked; before anything is made the size it says
+	int offset(int i)
+	{
+		int at = entry(i);
+		long offset = data.getLong(at);
+		int rows = data.getInt(at+8);
+		int cols = data.getInt(at+12);
+		if (rows < 0 || cols < 0 || offset < 0 || offset + packedSize((long)rows*cols) > data.limit())
+			throw new IllegalStateException("puzzle " + i + " runs off the end of the archive");
+		if ((long)rows*cols > Integer.MAX_VALUE)
+			throw new IllegalStateException("puzzle " + i + " says it's " + rows + "x" + cols + ", too big for a board");
+		return (int)offset;
+	}
+
+	static long packedSize(long clues)
+	{
+		return (clues*3+7)/8;
+	}
+	//count clues, 3 bits each, starting at byte offset of in
+	static void unpack(ByteBuffer in, int offset, int count, byte[] clues)
+	{
+		int bits = 0;
+		int have = 0;
+		int at = offset;
+		for (int i = 0; i < count; i++)
+		{
+			if (have < 3)
+			{
+				bits |= (in.get(at++) & 0xFF) << have;
+				have += 8;
+			}
+			clues[i] = clue(bits & 7);
+			bits >>>= 3;
+			have -= 3;
+		}
+	}
+	static byte clue(int value)
+	{
+		if (value > SlitherSolverOO.NO_INFO)
+			throw new IllegalStateException(value + " isn't a clue");
+		return (byte)value;
+	}
+	static byte[] pack(byte[] clues, int count)
+	{
+		byte[] out = new byte[(int)packedSize(count)];
+		int bits = 0;
+		int have = 0;
+		int at = 0;
+		for (int i = 0; i < count; i++)
+		{
+			bits |= (clues[i] & 7) << have;
+			have += 3;
+			if (have >= 8)
+			{
+				out[at++] = (byte)bits;
+				bits >>>= 8;
+				have -= 8;
+			}
+		}
+		if (have > 0)
+			out[at] = (byte)bits;
+		return out;
+	}
+
+	//collects puzzles and writes the archive out on close(); the index has to come first, so the packed
+	//clues wait in memory until then (750 bytes for a 40x50 board)
+	public static class Writer implements Closeable
+	{
+		Path file;
+		ByteArrayOutputStream packed = new ByteArrayOutputStream();
+		int[] rows = new int[64];
+		int[] cols = new int[64];
+		long[] offsets = new long[64];
+		int count;
+
+		public Writer(Path f)
+		{
+			file = f;
+		}
+		//clues[row*cols+col], 0-4 or NO_INFO
+		public void add(int r, int c, byte[] clues)
+		{
+			for (int i = 0; i < r*c; i++)
+				if (clues[i] < 0 || clues[i] > SlitherSolverOO.NO_INFO)
+					throw new IllegalArgumentException(clues[i] + " isn't a clue");
+			if (count == rows.length)
+			{
+				rows = Arrays.copyOf(rows,count*2);
+				cols = Arrays.copyOf(cols,count*2);
+				offsets = Arrays.copyOf(offsets,count*2);
+			}
+			rows[count] = r;
+			cols[count] = c;
+			offsets[count] = packed.size();
+			count++;
+			packed.writeBytes(pack(clues,r*c));
+		}
+		public int size()
+		{
+			return count;
+		}
+		public void close() throws IOException
+		{
+			long start = HEADER + (long)count*ENTRY;
+			ByteBuffer index = ByteBuffer.allocate((int)start);
+			index.putInt(MAGIC).putInt(VERSION).putInt(count);
+			for (int i = 0; i < count; i++)
+				index.putLong(start + offsets[i]).putInt(rows[i]).putInt(cols[i]);
+			index.flip();
+			try (FileChannel out = FileChannel.open(file,StandardOpenOption.WRITE,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING)) {
+				while (index.hasRemaining())
+					out.write(index);
+				ByteBuffer clues = ByteBuffer.wrap(packed.toByteArray());
+				while (clues.hasRemaining())
+					out.write(clues);
+			}
+		}
+	}
+
+	//every puzzle in a file (or the files of a directory, in name order) goes in, up to the first one that can't be read
+	static void add(Writer out, File f) throws IOException
+	{
+		if (f.isDirectory())
+		{
+			File[] files = f.listFiles();
+			if (files == null)
+				throw new IOException("can't list " + f);
+			Arrays.sort(files);
+			for (File each : files)
+				add(out,each);
+			return;
+		}
+		PuzzleParser parser = PuzzleParser.map(f.toPath());
+		if (parser.startsWith('<'))
+		{
+			try (ReadableByteChannel in = Channels.newChannel(new FileInputStream(f))) {
+				HtmlBoardReader page = HtmlBoardReader.read(in);
+				out.add(page.rows,page.cols,page.clues);
+			}
+			return;
+		}
+		try {
+			while (parser.hasNext())
+			{
+				parser.next();
+				out.add(parser.rows,parser.cols,parser.clues);
+			}
+		} catch (PuzzleFormatException e) {
+			//like a log with a board at the top; keep what came before
+			System.err.println(f + ": " + e.getMessage() + ", skipping the rest");
+		}
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length == 0)
+		{
+			System.err.println("java PuzzleArchive archive [input...]");
+			System.exit(2);
+		}
+		Path file = Paths.get(args[0]);
+		if (args.length > 1)
+		{
+			Writer out = new Writer(file);
+			for (int i = 1; i < args.length; i++)
+				add(out,new File(args[i]));
+			out.close();
+			System.out.printf("%d puzzles, %d bytes\n",out.size(),Files.size(file));
+			return;
+		}
+		PuzzleArchive archive = open(file);
+		for (int i = 0; i < archive.size(); i++)
+			System.out.printf("%d\t%dx%d\n",i,archive.rows(i),archive.cols(i));
+	}
+}
@@ -0,0 +1,31 @@
+//a puzzle that can't be read, and where exactly the reading stopped making sense.
+//offset is in bytes from the start of the input; line and column count from 1
+
+public class PuzzleFormatException extends IllegalArgumentException
+{
+	private static final long serialVersionUID = 1L;
+
+	final long offset;
+	final int line;
+	final int column;
+
+	public PuzzleFormatException(String message, long o, int l, int c)
+	{
+		super(String.format("line %d, column %d: %s",l,c,message));
+		offset = o;
+		line = l;
+		column = c;
+	}
+	public long getOffset()
+	{
+		return offset;
+	}
+	public int getLine()
+	{
+		return line;
+	}
+	public int getColumn()
+	{
+		return column;
+	}
+}
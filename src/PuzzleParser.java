@@ -0,0 +1,320 @@
+//reads puzzles straight out of bytes (an array, or a mapped file), one after another, in one pass.
+//two layouts are understood:
+//	"rows cols", then rows*cols clues (0-4, or . for none), laid out however, whitespace ignored
+//	a board as print() draws it, with no header: lines 2*cols+1 columns wide, alternating edges and cells,
+//	with the clues at the odd columns of the cell lines (blank or . for none), like the frames in testcases/out25x30
+//nothing is allocated per character; mistakes come out as a PuzzleFormatException saying where
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class PuzzleParser
+{
+	ByteBuffer in;
+	int pos, limit;
+	//the puzzle last read by next(): clues[row*cols+col], 0-4 or NO_INFO
+	int rows, cols;
+	byte[] clues;
+
+	public PuzzleParser(ByteBuffer b)
+	{
+		in = b;
+		pos = b.position();
+		limit = b.limit();
+	}
+	public PuzzleParser(byte[] data)
+	{
+		this(ByteBuffer.wrap(data));
+	}
+	//the whole file, mapped rather than read
+	public static PuzzleParser map(Path file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file,StandardOpenOption.READ)) {
+			return new PuzzleParser(channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size()));
+		}
+	}
+	//the first puzzle in data; anything after it is ignored
+	public static PuzzleParser parse(byte[] data)
+	{
+		PuzzleParser p = new PuzzleParser(data);
+		p.next();
+		return p;
+	}
+
+	public SlitherSolverOO board()
+	{
+		return SlitherSolverOO.fromClues(rows,cols,clues);
+	}
+	//does the input start with c, after any whitespace?
+	public boolean startsWith(char c)
+	{
+		for (int i = pos; i < limit; i++)
+			if (!whitespace(in.get(i)))
+				return in.get(i) == c;
+		return false;
+	}
+	//is there anything but whitespace left?
+	public boolean hasNext()
+	{
+		for (int i = pos; i < limit; i++)
+			if (!whitespace(in.get(i)))
+				return true;
+		return false;
+	}
+	public void next()
+	{
+		int start = pos;
+		int end = lineEnd(start);
+		while (start < limit && blank(start,end))
+		{
+			start = end+1;
+			end = lineEnd(start);
+		}
+		if (start >= limit)
+			throw error("no puzzle",limit);
+		if (header(start,end))
+			readHeader(start);
+		else
+			readFrame(start,end);
+	}
+
+	void readHeader(int at)
+	{
+		pos = at;
+		rows = readInt("the number of rows");
+		cols = readInt("the number of columns");
+		int count = rows*cols;
+		//every clue takes a byte at least, so a board bigger than what's left can't be there; say so before making room
+		if (count > limit-pos)
+			throw error(rows + "x" + cols + " needs " + count + " clues, but only " + (limit-pos) + " bytes are left",at);
+		clues = new byte[count];
+		int filled = 0;
+		while (filled < count)
+		{
+			if (pos >= limit)
+				throw error("the board ends after " + filled + " of " + count + " clues",pos);
+			byte b = in.get(pos);
+			if (!whitespace(b))
+			{
+				byte clue = clue(b);
+				if (clue < 0)
+					throw error("'" + (char)(b & 0xFF) + "' isn't a clue",pos);
+				clues[filled++] = clue;
+			}
+			pos++;
+		}
+	}
+	int readInt(String what)
+	{
+		while (pos < limit && whitespace(in.get(pos)))
+			pos++;
+		if (pos >= limit || !digit(in.get(pos)))
+			throw error("expected " + what,pos);
+		int value = 0;
+		while (pos < limit && digit(in.get(pos)))
+		{
+			value = value*10 + (in.get(pos)-'0');
+			if (value > 1 << 15)
+				throw error(what + " is too large",pos);
+			pos++;
+		}
+		return value;
+	}
+
+	//start to end is the first line with something on it: either the first line of cells or the top edges above it
+	void readFrame(int start, int end)
+	{
+		if (!frameLike(start,end))
+			throw error("expected \"rows cols\" or a drawn board",start);
+		if (!cellLine(start,end,0))
+		{
+			start = end+1;
+			end = lineEnd(start);
+		}
+		rows = 0;
+		cols = width(start,end)/2;
+		if (cols == 0 || !frameLike(start,end) || !cellLine(start,end,cols))
+			throw error("expected a line of cells",start);
+		clues = new byte[cols*8];
+		while (true)
+		{
+			if (clues.length < (rows+1)*cols)
+				clues = Arrays.copyOf(clues,clues.length*2);
+			readCells(start,end,rows*cols);
+			rows++;
+			//the edges below, then maybe another line of cells
+			pos = end+1;
+			if (pos >= limit)
+			{
+				pos = limit;
+				break;
+			}
+			int edgeEnd = lineEnd(pos);
+			if (!frameLike(pos,edgeEnd))
+				break;
+			pos = Math.min(edgeEnd+1,limit);
+			start = pos;
+			end = lineEnd(start);
+			if (start >= limit || !frameLike(start,end) || !cellLine(start,end,cols))
+				break;
+		}
+		clues = Arrays.copyOf(clues,rows*cols);
+	}
+	//the cells on one line, into clues from index first on; a short line means the rest are empty
+	void readCells(int start, int end, int first)
+	{
+		int column = 0;
+		for (int i = start; i < end; i++)
+		{
+			byte b = in.get(i);
+			if ((b & 0xC0) == 0x80 || b == '\r') continue; //the rest of a UTF-8 character, or a DOS line end
+			if (column%2 == 1)
+			{
+				int cell = column/2;
+				if (cell >= cols)
+				{
+					if (b != ' ')
+						throw error("this line is wider than the first line of cells",i);
+				}
+				else
+				{
+					byte clue = clue(b);
+					if (clue < 0)
+						throw error("'" + (char)(b & 0xFF) + "' isn't a clue",i);
+					clues[first+cell] = clue;
+				}
+			}
+			column++;
+		}
+		for (int cell = (column+1)/2; cell < cols; cell++)
+			clues[first+cell] = SlitherSolverOO.NO_INFO;
+	}
+	//a line of cells has nothing but clues at its odd columns (and is full width, if it's blank).
+	//with cols 0, it also has to have a clue or a dot somewhere, to tell it from a line of edges
+	boolean cellLine(int start, int end, int cols)
+	{
+		int column = 0;
+		boolean marked = false;
+		for (int i = start; i < end; i++)
+		{
+			byte b = in.get(i);
+			if ((b & 0xC0) == 0x80 || b == '\r') continue;
+			if (column%2 == 1 && b != ' ')
+			{
+				if (clue(b) < 0)
+					return false;
+				marked = true;
+			}
+			column++;
+		}
+		if (cols == 0)
+			return marked;
+		return marked || column >= cols*2;
+	}
+	//spaces, clues, and the things print() draws edges with
+	boolean frameLike(int start, int end)
+	{
+		if (start >= end)
+			return false;
+		for (int i = start; i < end; i++)
+		{
+			int b = in.get(i) & 0xFF;
+			if (b == 0xE2 && i+2 < limit && (in.get(i+1) & 0xFF) == 0x94) //U+2500-U+253F, box drawing
+			{
+				i += 2;
+				continue;
+			}
+			if (b == 0xC2 && i+1 < limit && (in.get(i+1) & 0xFF) == 0xB7) //middle dot
+			{
+				i++;
+				continue;
+			}
+			if (b != ' ' && b != '.' && b != 'x' && b != '|' && b != '-' && b != '+' && b != '\r' && !(b >= '0' && b <= '4'))
+				return false;
+		}
+		return true;
+	}
+	//a number at the very start of the line, or a line with just two numbers on it
+	boolean header(int start, int end)
+	{
+		if (digit(in.get(start)))
+			return true;
+		int i = start;
+		for (int number = 0; number < 2; number++)
+		{
+			while (i < end && whitespace(in.get(i)))
+				i++;
+			if (i >= end || !digit(in.get(i)))
+				return false;
+			while (i < end && digit(in.get(i)))
+				i++;
+		}
+		while (i < end && whitespace(in.get(i)))
+			i++;
+		return i >= end;
+	}
+	//columns, counting characters rather than bytes, and not counting a trailing \r
+	int width(int start, int end)
+	{
+		int columns = 0;
+		for (int i = start; i < end; i++)
+		{
+			byte b = in.get(i);
+			if ((b & 0xC0) != 0x80 && b != '\r')
+				columns++;
+		}
+		return columns;
+	}
+	boolean blank(int start, int end)
+	{
+		for (int i = start; i < end; i++)
+			if (!whitespace(in.get(i)))
+				return false;
+		return true;
+	}
+	//the \n at the end of the line starting at start, or limit
+	int lineEnd(int start)
+	{
+		int i = start;
+		while (i < limit && in.get(i) != '\n')
+			i++;
+		return i;
+	}
+
+	static boolean whitespace(byte b)
+	{
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+	}
+	static boolean digit(byte b)
+	{
+		return b >= '0' && b <= '9';
+	}
+	//0-4, NO_INFO for . or a space, -1 for anything else
+	static byte clue(byte b)
+	{
+		if (b >= '0' && b <= '4')
+			return (byte)(b-'0');
+		if (b == '.' || b == ' ')
+			return SlitherSolverOO.NO_INFO;
+		return -1;
+	}
+
+	PuzzleFormatException error(String message, int at)
+	{
+		int line = 1;
+		int lineStart = in.position();
+		for (int i = in.position(); i < at && i < limit; i++)
+		{
+			if (in.get(i) == '\n')
+			{
+				line++;
+				lineStart = i+1;
+			}
+		}
+		return new PuzzleFormatException(message,at-in.position(),line,width(lineStart,Math.min(at,limit))+1);
+	}
+}
@@ -0,0 +1,85 @@
+//looks over every cell of a SlitherSolverFlat at once for the ones whose quota is filled: as many edges on as the clue
+//(the rest can go off), as many off as 4 minus the clue (the rest can go on), or, with no clue, nothing left undecided.
+//a cell's four edges are the same column of three rows of the edge array (up, left and right side by side, down),
+//so a row of cells is a stencil over straight runs of it; VectorQuotaSweep does whole runs at a time with the
+//Vector API, and this is the plain version, used when jdk.incubator.vector isn't there.
+//see SlitherSolverFlat.fillSaturated()
+
+public class QuotaSweep
+{
+	static final int OFF = SlitherSolverFlat.OFF;
+	static final int NO_INFO = SlitherSolverFlat.NO_INFO;
+
+	//what saturated() says about a cell
+	static final int OPEN = 0; //nothing to do
+	static final int REST_OFF = 1;
+	static final int REST_ON = 2;
+	static final int FINISHED = 3; //no clue, every edge decided
+
+	int rows, cols, w;
+	int[] clues; //as ints, to line up with the edges
+
+	public QuotaSweep(SlitherSolverFlat board)
+	{
+		rows = board.rows;
+		cols = board.cols;
+		w = board.w;
+		clues = new int[rows*cols];
+		for (int c = 0; c < clues.length; c++)
+			clues[c] = board.clue[c];
+	}
+
+	//VectorQuotaSweep where the module is there (java --add-modules jdk.incubator.vector), this otherwise
+	public static QuotaSweep of(SlitherSolverFlat board)
+	{
+		QuotaSweep vector = vector(board);
+		return vector != null ? vector : new QuotaSweep(board);
+	}
+	//null without jdk.incubator.vector
+	public static QuotaSweep vector(SlitherSolverFlat board)
+	{
+		try {
+			return (QuotaSweep)Class.forName("VectorQuotaSweep").getConstructor(SlitherSolverFlat.class).newInstance(board);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	//the cells saturated() has something to say about, into out (which needs room for every cell); returns how many
+	public int sweep(int[] edge, int[] out)
+	{
+		int count = 0;
+		for (int c = 0; c < rows*cols; c++)
+			if (saturated(edge,c) != OPEN)
+				out[count++] = c;
+		return count;
+	}
+
+	public int saturated(int[] edge, int c)
+	{
+		int up = (c/cols)*2*w+c%cols;
+		int on = 0, off = 0;
+		on += edge[up] > OFF ? 1 : 0;
+		off += edge[up] == OFF ? 1 : 0;
+		on += edge[up+w] > OFF ? 1 : 0;
+		off += edge[up+w] == OFF ? 1 : 0;
+		on += edge[up+w+1] > OFF ? 1 : 0;
+		off += edge[up+w+1] == OFF ? 1 : 0;
+		on += edge[up+2*w] > OFF ? 1 : 0;
+		off += edge[up+2*w] == OFF ? 1 : 0;
+		if (clues[c] == NO_INFO)
+			return on+off == 4 ? FINISHED : OPEN;
+		if (on+off == 4)
+			return OPEN;
+		if (on == clues[c])
+			return REST_OFF;
+		if (off == 4-clues[c])
+			return REST_ON;
+		return OPEN;
+	}
+
+	public String toString()
+	{
+		return "scalar";
+	}
+}
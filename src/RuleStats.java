@@ -0,0 +1,96 @@
+//what each deduction rule in SlitherSolverOO does for a living: how often it fires, how many edges get decided
+//while it runs, and how long it takes. off unless a board is given one (SlitherSolverOO.stats); then every check
+//is a null test. the counters are LongAdders, so the boards of a whole batch can share one from any number of threads.
+//
+//edges and times are inclusive: a cell rule counts the vertex updates it sets off too, and the resolveThreeCell
+//branches and vertex cases are counted inside their rules. LOOP_JOIN's edges are the length of the shorter
+//segment, which used to be repainted edge by edge on every join.
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class RuleStats
+{
+	public enum Rule
+	{
+		ZERO, //the zero-clue fast path in solve()
+		STAY_OPEN,
+		FILL_QUOTA,
+		ONE, TWO, THREE, //resolveOneCell() and so on, as a whole
+		THREE_PIGEONHOLE, THREE_SIGNAL, THREE_ADJACENT, //branches of resolveThreeCell()
+		VERTEX_ON, VERTEX_OFF, VERTEX_CONTRADICTION, //updateVertex() forcing edges, or finding nothing fits
+		LOOP_JOIN,
+		PATTERN, //PatternLibrary
+		WINDOW //WindowTable
+	}
+	static final Rule[] RULES = Rule.values();
+	//by clue
+	static final Rule[] CELL = {Rule.ZERO,Rule.ONE,Rule.TWO,Rule.THREE};
+
+	LongAdder[] fired = adders();
+	LongAdder[] edges = adders();
+	LongAdder[] nanos = adders();
+
+	static LongAdder[] adders()
+	{
+		LongAdder[] a = new LongAdder[RULES.length];
+		for (int i = 0; i < a.length; i++)
+			a[i] = new LongAdder();
+		return a;
+	}
+
+	public void record(Rule r, long decided, long time)
+	{
+		fired[r.ordinal()].increment();
+		if (decided != 0)
+			edges[r.ordinal()].add(decided);
+		if (time != 0)
+			nanos[r.ordinal()].add(time);
+	}
+	public long fired(Rule r)
+	{
+		return fired[r.ordinal()].sum();
+	}
+	public long edges(Rule r)
+	{
+		return edges[r.ordinal()].sum();
+	}
+	public long nanos(Rule r)
+	{
+		return nanos[r.ordinal()].sum();
+	}
+	//other's counts on top of these
+	public void add(RuleStats other)
+	{
+		for (int i = 0; i < RULES.length; i++)
+		{
+			fired[i].add(other.fired[i].sum());
+			edges[i].add(other.edges[i].sum());
+			nanos[i].add(other.nanos[i].sum());
+		}
+	}
+	public void reset()
+	{
+		for (int i = 0; i < RULES.length; i++)
+		{
+			fired[i].reset();
+			edges[i].reset();
+			nanos[i].reset();
+		}
+	}
+
+	//{"zero":{"fired":12,"edges":48,"nanos":3100},...}, in Rule order, rules that never fired left out
+	public String toJson()
+	{
+		StringBuilder out = new StringBuilder("{");
+		for (Rule r : RULES)
+		{
+			long f = fired(r);
+			if (f == 0) continue;
+			if (out.length() > 1)
+				out.append(',');
+			out.append('"').append(r.name().toLowerCase()).append("\":{\"fired\":").append(f)
+				.append(",\"edges\":").append(edges(r)).append(",\"nanos\":").append(nanos(r)).append('}');
+		}
+		return out.append('}').toString();
+	}
+}
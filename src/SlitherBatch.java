@@ -0,0 +1,433 @@
+//solves lots of puzzles in one JVM, spread over a fixed number of threads.
+//puzzles come either from a stream of "rows cols" + clue grid puzzles, one after the other,
+//or from files and the files in directories (text, possibly several puzzles per file, saved HTML pages, or PuzzleArchives).
+//every puzzle gets its own SlitherSolverOO; one line per puzzle comes out, in input order or as they finish.
+//
+//with -cache, puzzles already solved before (turned or mirrored or not) are filled in from a SolutionCache
+//kept in that file instead of being solved again.
+//
+//-stats adds what each deduction rule did (see RuleStats) as JSON after each puzzle's line, and for the lot at the end.
+//
+//java SlitherBatch [-threads n] [-search] [-sweep] [-unordered] [-print] [-cache file] [-stats] [directory or file...] < puzzles
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class SlitherBatch
+{
+	static class Puzzle
+	{
+		String name;
+		String text;
+		boolean html;
+		//or already parsed
+		int rows, cols;
+		byte[] clues;
+		//or puzzle index of an archive, only unpacked when it's solved
+		PuzzleArchive archive;
+		int index;
+		//or not readable at all
+		RuntimeException problem;
+
+		public Puzzle(String n, String t, boolean h)
+		{
+			name = n;
+			text = t;
+			html = h;
+		}
+		public Puzzle(String n, int r, int c, byte[] cl)
+		{
+			name = n;
+			rows = r;
+			cols = c;
+			clues = cl;
+		}
+		public Puzzle(String n, PuzzleArchive a, int i)
+		{
+			name = n;
+			archive = a;
+			index = i;
+		}
+		public Puzzle(String n, RuntimeException p)
+		{
+			name = n;
+			problem = p;
+		}
+		//on a board from pool, if there is one
+		SlitherSolverOO board(BoardPool pool) throws IOException
+		{
+			if (problem != null)
+				throw problem;
+			if (archive != null)
+			{
+				if (pool == null)
+					return archive.board(index);
+				int offset = archive.offset(index);
+				SlitherSolverOO board = pool.take(archive.rows(index),archive.cols(index));
+				board.setPackedClues(archive.data,offset);
+				return board;
+			}
+			int r = rows;
+			int c = cols;
+			byte[] cl = clues;
+			if (cl == null && html)
+			{
+				HtmlBoardReader page = HtmlBoardReader.read(text);
+				r = page.rows;
+				c = page.cols;
+				cl = page.clues;
+			}
+			else if (cl == null)
+			{
+				PuzzleParser parser = PuzzleParser.parse(text.getBytes(StandardCharsets.UTF_8));
+				r = parser.rows;
+				c = parser.cols;
+				cl = parser.clues;
+			}
+			return pool == null ? SlitherSolverOO.fromClues(r,c,cl) : pool.take(r,c,cl);
+		}
+	}
+	static class Result
+	{
+		Puzzle puzzle;
+		SlitherSolverOO board;
+		String status;
+		boolean cached;
+		long nanos;
+		RuleStats stats;
+
+		public String toString()
+		{
+			return String.format("%s\t%s\t%.3f ms",puzzle.name,cached ? status + " (cached)" : status,nanos/1e6);
+		}
+	}
+	static final String SOLVED = "solved";
+	static final String STALLED = "stalled"; //deduction ran out with edges still unknown
+	static final String UNSOLVABLE = "unsolvable";
+	static final String ERROR = "error";
+
+	int threads;
+	boolean search;
+	boolean ordered;
+	SolutionCache cache;
+	boolean stats;
+	boolean sweep; //EdgePlanes.presolve() before solve()
+	//boards are taken from here, and given back once out has seen the result
+	BoardPool pool;
+
+	public SlitherBatch(int t, boolean s, boolean o)
+	{
+		threads = t;
+		search = s;
+		ordered = o;
+	}
+
+	//solve everything the iterator hands out, passing each result to out (always from the calling thread).
+	//at most a couple of puzzles per thread are read ahead, so huge archives don't pile up in memory
+	public void run(Iterator<Puzzle> puzzles, java.util.function.Consumer<Result> out) throws InterruptedException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CompletionService<Result> finished = new ExecutorCompletionService<Result>(pool);
+		ArrayDeque<Future<Result>> pending = new ArrayDeque<Future<Result>>();
+		int limit = threads*2;
+		try {
+			while (puzzles.hasNext())
+			{
+				Puzzle p = puzzles.next();
+				Callable<Result> task = () -> solve(p);
+				pending.add(ordered ? pool.submit(task) : finished.submit(task));
+				if (pending.size() >= limit)
+					done(next(pending,finished),out);
+			}
+			while (!pending.isEmpty())
+				done(next(pending,finished),out);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+	void done(Result r, java.util.function.Consumer<Result> out)
+	{
+		out.accept(r);
+		if (pool != null && r.board != null)
+			pool.give(r.board);
+	}
+	Result next(ArrayDeque<Future<Result>> pending, CompletionService<Result> finished) throws InterruptedException
+	{
+		try {
+			if (ordered)
+				return pending.poll().get();
+			Future<Result> f = finished.take();
+			pending.remove(f);
+			return f.get();
+		} catch (ExecutionException e) {
+			//solve() catches everything itself
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	public Result solve(Puzzle p)
+	{
+		Result r = new Result();
+		r.puzzle = p;
+		long start = System.nanoTime();
+		try {
+			SlitherSolverOO s = p.board(pool);
+			if (stats)
+				s.stats = r.stats = new RuleStats();
+			SolutionCache.Key key = cache == null ? null : SolutionCache.key(s);
+			if (key != null && cache.solve(s,key))
+			{
+				r.status = SOLVED;
+				r.cached = true;
+				r.board = s;
+				r.nanos = System.nanoTime() - start;
+				return r;
+			}
+			if (sweep)
+				EdgePlanes.presolve(s);
+			s.solve();
+			if (!s.consistent())
+				r.status = UNSOLVABLE;
+			else if (s.solved())
+				r.status = SOLVED;
+			else if (search)
+			{
+				SlitherSolverOO solution = new SlitherSearch().solve(s);
+				if (solution == null)
+					r.status = UNSOLVABLE;
+				else
+				{
+					if (pool != null && solution != s)
+						pool.give(s);
+					s = solution;
+					r.status = SOLVED;
+				}
+			}
+			else
+				r.status = STALLED;
+			r.board = s;
+			if (key != null && r.status == SOLVED)
+				cache.put(key,Solution.of(s));
+		} catch (RuntimeException | IOException e) {
+			r.status = ERROR + ": " + e;
+		}
+		r.nanos = System.nanoTime() - start;
+		return r;
+	}
+
+	//reads "rows cols" + grid puzzles off a stream until it runs out
+	static class PuzzleReader implements Iterator<Puzzle>
+	{
+		Reader in;
+		String name;
+		int count;
+		Puzzle next;
+
+		public PuzzleReader(Reader i, String n)
+		{
+			in = i;
+			name = n;
+			next = read();
+		}
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+		public Puzzle next()
+		{
+			if (next == null)
+				throw new NoSuchElementException();
+			Puzzle p = next;
+			next = read();
+			return p;
+		}
+		Puzzle read()
+		{
+			try {
+				int rows = readInt();
+				int cols = readInt();
+				if (rows < 0 || cols < 0)
+					return null;
+				StringBuilder text = new StringBuilder(rows*(cols+1)+16);
+				text.append(rows).append(' ').append(cols);
+				for (int position = 0; position < rows*cols; )
+				{
+					int look = in.read();
+					if (look < 0)
+						break; //let the solver complain about the short board
+					if (position%cols == 0 && !Character.isWhitespace(look))
+						text.append('\n');
+					if (Character.isWhitespace(look)) continue;
+					text.append((char)look);
+					position++;
+				}
+				count++;
+				return new Puzzle(name + "#" + count,text.toString(),false);
+			} catch (IOException e) {
+				return null;
+			}
+		}
+		//-1 at the end of the stream
+		int readInt() throws IOException
+		{
+			int look = in.read();
+			while (look >= 0 && Character.isWhitespace(look))
+				look = in.read();
+			if (look < '0' || look > '9')
+				return -1;
+			int value = 0;
+			while (look >= '0' && look <= '9')
+			{
+				value = value*10 + (look-'0');
+				look = in.read();
+			}
+			return value;
+		}
+	}
+
+	//every puzzle in every file of a directory, in file name order; files are only read when they're needed
+	static Iterator<Puzzle> directory(File dir) throws IOException
+	{
+		File[] files = dir.listFiles(File::isFile);
+		if (files == null)
+			throw new IOException("can't list " + dir);
+		Arrays.sort(files);
+		return new Iterator<Puzzle>()
+		{
+			int nextFile = 0;
+			Iterator<Puzzle> current = Collections.emptyIterator();
+
+			public boolean hasNext()
+			{
+				while (!current.hasNext() && nextFile < files.length)
+					current = open(files[nextFile++]);
+				return current.hasNext();
+			}
+			public Puzzle next()
+			{
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return current.next();
+			}
+		};
+	}
+	//text files are mapped and parsed in place (see PuzzleParser); a bad puzzle ends the file with an error result
+	static Iterator<Puzzle> open(File f)
+	{
+		try {
+			if (PuzzleArchive.isArchive(f.toPath()))
+			{
+				PuzzleArchive archive = PuzzleArchive.open(f.toPath());
+				ArrayList<Puzzle> puzzles = new ArrayList<Puzzle>(archive.size());
+				for (int i = 0; i < archive.size(); i++)
+					puzzles.add(new Puzzle(f.getName() + "#" + (i+1),archive,i));
+				return puzzles.iterator();
+			}
+			PuzzleParser parser = PuzzleParser.map(f.toPath());
+			if (parser.startsWith('<'))
+			{
+				String text = new String(Files.readAllBytes(f.toPath()),StandardCharsets.UTF_8);
+				return Collections.singletonList(new Puzzle(f.getName(),text,true)).iterator();
+			}
+			return new Iterator<Puzzle>()
+			{
+				int count = 0;
+				boolean failed = false;
+
+				public boolean hasNext()
+				{
+					return !failed && parser.hasNext();
+				}
+				public Puzzle next()
+				{
+					if (!hasNext())
+						throw new NoSuchElementException();
+					count++;
+					String name = f.getName() + "#" + count;
+					try {
+						parser.next();
+						return new Puzzle(name,parser.rows,parser.cols,parser.clues);
+					} catch (PuzzleFormatException e) {
+						failed = true;
+						return new Puzzle(name,e);
+					}
+				}
+			};
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean search = false;
+		boolean ordered = true;
+		boolean print = false;
+		String cacheFile = null;
+		boolean stats = false;
+		boolean sweep = false;
+		ArrayList<String> dirs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-threads"))
+				threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-search"))
+				search = true;
+			else if (args[i].equals("-unordered"))
+				ordered = false;
+			else if (args[i].equals("-print"))
+				print = true;
+			else if (args[i].equals("-stats"))
+				stats = true;
+			else if (args[i].equals("-sweep"))
+				sweep = true;
+			else if (args[i].equals("-cache"))
+				cacheFile = args[++i];
+			else
+				dirs.add(args[i]);
+		}
+
+		SlitherBatch batch = new SlitherBatch(threads,search,ordered);
+		if (cacheFile != null)
+			batch.cache = new SolutionCache(SolutionCache.DEFAULT_CAPACITY,new File(cacheFile).toPath());
+		batch.stats = stats;
+		batch.sweep = sweep;
+		batch.pool = new BoardPool(threads*2+1);
+		RuleStats total = new RuleStats();
+		final boolean printBoards = print;
+		final int[] counts = new int[2];
+		java.util.function.Consumer<Result> out = r -> {
+			System.out.println(r);
+			if (printBoards && r.board != null)
+				r.board.print(false);
+			if (r.stats != null)
+			{
+				System.out.println(r.stats.toJson());
+				total.add(r.stats);
+			}
+			counts[0]++;
+			if (r.status.equals(SOLVED)) counts[1]++;
+		};
+
+		long start = System.nanoTime();
+		if (dirs.isEmpty())
+			batch.run(new PuzzleReader(new BufferedReader(new InputStreamReader(System.in)),"stdin"),out);
+		for (String dir : dirs)
+		{
+			File f = new File(dir);
+			batch.run(f.isDirectory() ? directory(f) : open(f),out);
+		}
+		System.err.printf("%d of %d solved in %.3f s on %d threads\n",counts[1],counts[0],(System.nanoTime()-start)/1e9,threads);
+		if (stats)
+			System.err.println(total.toJson());
+		if (batch.cache != null)
+		{
+			batch.cache.save();
+			System.err.println(batch.cache.report());
+		}
+	}
+}
@@ -0,0 +1,319 @@
+//depth-first search for when deduction alone stalls:
+//try an undecided edge both on and off, and let solve() find out whether that breaks anything.
+//if one side does, the other is forced. edges at loose ends get probed like this until nothing more is forced;
+//after that, the heuristic picks an edge and we recurse into the on side first.
+//each solve() is followed by what the inside and outside of the loop force (see settle()), which is most of what
+//prunes a puzzle with few clues.
+//all of it happens on the one board: a try is taken back by rolling its trail back (see SlitherSolverOO.checkpoint()),
+//which costs as much as the try changed rather than a copy of the whole board.
+//
+//java SlitherSearch [rows cols count [keep]]	checks that search solves random puzzles made from a known loop,
+//											keeping that fraction of their clues (0.7 if not given);
+//											with no arguments, 80 10x12 at 0.7 and some sparse ones at 0.3
+
+import java.util.Random;
+
+public class SlitherSearch
+{
+	//picks the edge to guess next
+	public interface Heuristic
+	{
+		//an UNKNOWN edge of the board, or null if there are none
+		SlitherSolverOO.Edge choose(SlitherSolverOO board);
+	}
+
+	//the first undecided edge in row-major order
+	public static final Heuristic FIRST_UNKNOWN = board -> {
+		for (int r = 0; r < board.rows*2+1; r++)
+			for (int c = 0; c < (r%2 == 0 ? board.cols : board.cols+1); c++)
+				if (board.edges[r][c].state == SlitherSolverOO.UNKNOWN)
+					return board.edges[r][c];
+		return null;
+	};
+
+	//an undecided edge at the vertex with the fewest options left,
+	//preferring loose ends (one edge on) since either choice there tends to run into trouble fast
+	public static final Heuristic MOST_CONSTRAINED_VERTEX = board -> {
+		SlitherSolverOO.Edge best = null;
+		int bestScore = Integer.MAX_VALUE;
+		for (int r = 0; r <= board.rows; r++)
+		{
+			for (int c = 0; c <= board.cols; c++)
+			{
+				SlitherSolverOO.Vertex v = board.vertices[r][c];
+				SlitherSolverOO.Edge candidate = null;
+				int on = 0;
+				int unknown = 0;
+				for (byte d = SlitherSolverOO.EDGE_UP; d <= SlitherSolverOO.EDGE_DOWN; d++)
+				{
+					SlitherSolverOO.Edge e = v.get(d);
+					if (e == null) continue;
+					if (e.state > SlitherSolverOO.OFF)
+						on++;
+					else if (e.state == SlitherSolverOO.UNKNOWN)
+					{
+						unknown++;
+						if (candidate == null) candidate = e;
+					}
+				}
+				if (candidate == null) continue;
+				int score = (on == 1 ? 0 : 64) + unknown*8 + Integer.bitCount(v.state);
+				if (score < bestScore)
+				{
+					bestScore = score;
+					best = candidate;
+				}
+			}
+		}
+		return best;
+	};
+
+	Heuristic heuristic;
+	//how the last solve() went
+	long nodes;
+	long contradictions;
+	int maxDepth;
+	long nanos;
+
+	public SlitherSearch()
+	{
+		this(MOST_CONSTRAINED_VERTEX);
+	}
+	public SlitherSearch(Heuristic h)
+	{
+		heuristic = h;
+	}
+
+	//returns a solved board (possibly the one passed in), or null if there is no solution
+	public SlitherSolverOO solve(SlitherSolverOO board)
+	{
+		nodes = 0;
+		contradictions = 0;
+		maxDepth = 0;
+		long start = System.nanoTime();
+		boolean tracked = board.trail != null;
+		SlitherSolverOO result = search(board,0);
+		if (!tracked)
+			board.untrack();
+		nanos = System.nanoTime() - start;
+		return result;
+	}
+	//what's left of board once this returns null is of no use to anyone
+	SlitherSolverOO search(SlitherSolverOO board, int depth)
+	{
+		maxDepth = Math.max(maxDepth,depth);
+		nodes++;
+		board.track();
+		if (!settle(board))
+		{
+			contradictions++;
+			return null;
+		}
+		while (!board.solved())
+		{
+			if (cancelled())
+				return null;
+			board = sweep(board);
+			if (board == null)
+				return null;
+			if (board.solved())
+				break;
+			SlitherSolverOO.Edge e = heuristic.choose(board);
+			if (e == null)
+			{
+				//everything is decided, but it isn't a loop
+				contradictions++;
+				return null;
+			}
+
+			//look one step ahead both ways; if either side breaks, the other is forced
+			boolean on;
+			if (fails(board,e,true))
+				on = false;
+			else if (fails(board,e,false))
+				on = true;
+			else //both are still possible, so we have to guess
+				return branch(board,e,depth);
+			board.assume(e,on);
+			nodes++;
+			if (!settle(board))
+			{
+				contradictions++;
+				return null;
+			}
+		}
+		return board;
+	}
+	//explore both sides of a guess at e, on first
+	SlitherSolverOO branch(SlitherSolverOO board, SlitherSolverOO.Edge e, int depth)
+	{
+		int mark = board.checkpoint();
+		board.assume(e,true);
+		SlitherSolverOO result = search(board,depth+1);
+		if (result != null)
+			return result;
+		board.rollback(mark);
+		board.assume(e,false);
+		return search(board,depth+1);
+	}
+	//lets a search running alongside others give up early
+	boolean cancelled()
+	{
+		return false;
+	}
+	//probe every undecided edge at a loose end until none of them is forced any more.
+	//returns the board with everything forced filled in, or null if that ran into a contradiction
+	SlitherSolverOO sweep(SlitherSolverOO board)
+	{
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			if (cancelled())
+				return null;
+			for (int r = 0; r <= board.rows; r++)
+			{
+				for (int c = 0; c <= board.cols; c++)
+				{
+					SlitherSolverOO.Vertex v = board.vertices[r][c];
+					int on = 0;
+					for (byte d = SlitherSolverOO.EDGE_UP; d <= SlitherSolverOO.EDGE_DOWN; d++)
+						if (v.getEdgeState(d) > SlitherSolverOO.OFF) on++;
+					if (on != 1) continue;
+					for (byte d = SlitherSolverOO.EDGE_UP; d <= SlitherSolverOO.EDGE_DOWN; d++)
+					{
+						SlitherSolverOO.Edge e = v.get(d);
+						if (e == null || e.state != SlitherSolverOO.UNKNOWN) continue;
+						if (fails(board,e,true))
+							board.assume(e,false);
+						else if (fails(board,e,false))
+							board.assume(e,true);
+						else
+							continue;
+						changed = true;
+						nodes++;
+						if (!settle(board))
+						{
+							contradictions++;
+							return null;
+						}
+						if (board.solved())
+							return board;
+					}
+				}
+			}
+		}
+		return board;
+	}
+	//solve(), and again after each round of edges the sides of the loop decide (see SlitherSolverOO.sideEdges());
+	//false if the board can't be completed
+	boolean settle(SlitherSolverOO board)
+	{
+		board.solve();
+		while (board.consistent())
+		{
+			if (board.solved() || board.sideEdges() == 0)
+				return true;
+			board.solve();
+		}
+		return false;
+	}
+	//does deciding e lead to a contradiction? board is left as it was either way
+	boolean fails(SlitherSolverOO board, SlitherSolverOO.Edge e, boolean on)
+	{
+		nodes++;
+		int mark = board.checkpoint();
+		board.assume(e,on);
+		boolean fails = !settle(board);
+		board.rollback(mark);
+		if (fails)
+			contradictions++;
+		return fails;
+	}
+
+	public static void main(String[] args)
+	{
+		if (args.length > 1)
+		{
+			int count = args.length > 2 ? Integer.parseInt(args[2]) : 80;
+			double keep = args.length > 3 ? Double.parseDouble(args[3]) : 0.7;
+			check(Integer.parseInt(args[0]),Integer.parseInt(args[1]),count,keep);
+			return;
+		}
+		check(10,12,80,0.7);
+		//sparse ones leave far more to search, and are where pruning shows
+		check(12,12,20,0.3);
+		check(15,15,5,0.3);
+	}
+	//count random puzzles, seeds 0 on; returns how many weren't solved
+	static int check(int rows, int cols, int count, double keep)
+	{
+		int failures = 0;
+		long nodes = 0;
+		long start = System.nanoTime();
+		for (int seed = 0; seed < count; seed++)
+		{
+			String puzzle = randomPuzzle(rows,cols,keep,new Random(seed));
+			SlitherSearch search = new SlitherSearch();
+			SlitherSolverOO board = search.solve(new SlitherSolverOO(puzzle));
+			nodes += search.nodes;
+			if (board == null || !board.solved())
+			{
+				if (failures++ < 10)
+					System.out.printf("seed %d: %s\n%s",seed,board == null ? "no solution found" : "not solved",puzzle);
+			}
+		}
+		System.out.printf("%dx%d keeping %.2f of the clues: %d puzzles, %d not solved, %d nodes, %.1f s\n",
+			rows,cols,keep,count,failures,nodes,(System.nanoTime()-start)/1e9);
+		return failures;
+	}
+	//a puzzle with at least one answer: the outline of a random blob of cells with no holes, and some of its clues
+	static String randomPuzzle(int rows, int cols, double keep, Random random)
+	{
+		boolean[][] in = new boolean[rows][cols];
+		in[rows/2][cols/2] = true;
+		int[] dr = {-1,-1,0,1,1,1,0,-1};
+		int[] dc = {0,1,1,1,0,-1,-1,-1};
+		int size = 1;
+		for (int tries = 0; size < rows*cols/2 && tries < rows*cols*200; tries++)
+		{
+			int r = random.nextInt(rows);
+			int c = random.nextInt(cols);
+			if (in[r][c]) continue;
+			//a cell can join if the blob around it is in one piece that touches one of its sides;
+			//then the blob stays in one piece without holes and its outline stays a single loop
+			boolean[] ring = new boolean[8];
+			for (int k = 0; k < 8; k++)
+				ring[k] = inside(in,r+dr[k],c+dc[k]);
+			int runs = 0;
+			for (int k = 0; k < 8; k++)
+				if (ring[k] && !ring[(k+7)%8]) runs++;
+			if (runs != 1 || !(ring[0] || ring[2] || ring[4] || ring[6])) continue;
+			in[r][c] = true;
+			size++;
+		}
+		StringBuilder out = new StringBuilder(rows + " " + cols + "\n");
+		for (int r = 0; r < rows; r++)
+		{
+			for (int c = 0; c < cols; c++)
+			{
+				int clue = 0;
+				for (int k = 0; k < 8; k += 2)
+					if (inside(in,r+dr[k],c+dc[k]) != in[r][c]) clue++;
+				out.append(random.nextDouble() < keep ? (char)('0'+clue) : '.');
+			}
+			out.append('\n');
+		}
+		return out.toString();
+	}
+	static boolean inside(boolean[][] in, int r, int c)
+	{
+		return r >= 0 && r < in.length && c >= 0 && c < in[0].length && in[r][c];
+	}
+
+	public String report()
+	{
+		return String.format("search: %d nodes, %d contradictions, max depth %d, %.3f ms",
+			nodes,contradictions,maxDepth,nanos/1e6);
+	}
+}
@@ -0,0 +1,334 @@
+//keeps a warmed-up JVM around and solves puzzles sent over a local socket (TCP on the loopback, or a Unix-domain socket),
+//so a solve costs milliseconds rather than a JVM start and a cold JIT. the JIT is warmed on the bundled testcases first.
+//each connection gets a thread of its own (a virtual one, on a JVM that has them) and can send any number of requests:
+//	solve <format> <length> [search] [raw|base64|rle|picture]\n, then length bytes of puzzle
+//		format is text ("rows cols" + clue grid, or a drawn board), html (a saved page),
+//		or packed (rows and cols as 16-bit big-endian numbers, then the clues packed as PuzzleArchive packs them),
+//		and no bigger than MAX_CELLS cells
+//	ping\n
+//	quit\n
+//and gets back, for each one,
+//	<status> <length>\n, then length bytes
+//where status is solved, stalled, unsolvable, error or pong. a solved or stalled board comes back as a Solution
+//(base64 unless asked otherwise) or drawn as print(false) draws it; an error comes back as its message;
+//pong comes with how many puzzles the server has solved since it started, in decimal.
+//
+//java SlitherServer [-port n | -socket path] [-warm dir] [-warmtime seconds] [-cache file]
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SlitherServer
+{
+	static final int DEFAULT_PORT = 7474;
+	static final int MAX_PUZZLE = 64 << 20;
+	//a board takes a few hundred bytes a cell once it's solving, so a request gets no more than this many
+	static final int MAX_CELLS = 1 << 18;
+	static final long WARM_MILLIS = 10000;
+
+	SlitherBatch plain = new SlitherBatch(1,false,true);
+	SlitherBatch searching = new SlitherBatch(1,true,true);
+	BoardPool pool = new BoardPool(16);
+	ExecutorService workers = threadPerTask();
+	int served;
+
+	//Executors.newVirtualThreadPerTaskExecutor() where there is one; a plain thread each otherwise
+	static ExecutorService threadPerTask()
+	{
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	public SlitherServer()
+	{
+		plain.pool = pool;
+		searching.pool = pool;
+	}
+
+	public void useCache(SolutionCache cache)
+	{
+		plain.cache = cache;
+		searching.cache = cache;
+	}
+
+	//solve every puzzle in dir over and over for a while, so the requests don't have to.
+	//C2 keeps finding things to compile for several seconds, so going by whether a pass got faster stops too soon
+	public void warmUp(File dir, long millis) throws IOException
+	{
+		long start = System.nanoTime();
+		long last = 0;
+		int solves = 0;
+		while (System.nanoTime() - start < millis*1000000)
+		{
+			Iterator<SlitherBatch.Puzzle> puzzles = SlitherBatch.directory(dir);
+			if (!puzzles.hasNext())
+				break;
+			long pass = System.nanoTime();
+			while (puzzles.hasNext())
+			{
+				SlitherBatch.Result r = plain.solve(puzzles.next());
+				if (r.board != null)
+				{
+					Solution.of(r.board).toBytes(Solution.Format.BASE64);
+					pool.give(r.board);
+				}
+				solves++;
+			}
+			last = System.nanoTime() - pass;
+		}
+		System.err.printf("warmed up with %d solves in %.1f s, the last pass through %s taking %.1f ms\n",
+			solves,(System.nanoTime()-start)/1e9,dir,last/1e6);
+	}
+
+	public void serve(ServerSocketChannel server) throws IOException
+	{
+		while (true)
+		{
+			SocketChannel client = server.accept();
+			workers.execute(() -> {
+				try (SocketChannel c = client) {
+					handle(new BufferedInputStream(Channels.newInputStream(c)),
+						new BufferedOutputStream(Channels.newOutputStream(c)));
+				} catch (IOException e) {
+					//the client went away; nothing to tell it
+				}
+			});
+		}
+	}
+
+	//requests until quit or the end of the stream
+	void handle(InputStream in, OutputStream out) throws IOException
+	{
+		String line;
+		while ((line = readLine(in)) != null)
+		{
+			String[] words = line.trim().split(" +");
+			if (words[0].equals("quit"))
+				break;
+			if (words[0].equals("ping"))
+				reply(out,"pong",Integer.toString(served()).getBytes(StandardCharsets.US_ASCII));
+			else if (words[0].equals("solve") && words.length >= 3)
+			{
+				int length;
+				try {
+					length = Integer.parseInt(words[2]);
+				} catch (NumberFormatException e) {
+					length = -1;
+				}
+				if (length < 0 || length > MAX_PUZZLE)
+				{
+					error(out,"bad length " + words[2]);
+					break; //no telling where the next request starts
+				}
+				byte[] body = in.readNBytes(length);
+				if (body.length < length)
+					break;
+				solve(words,body,out);
+			}
+			else
+				error(out,"unknown request: " + line);
+			out.flush();
+		}
+		out.flush();
+	}
+	void solve(String[] words, byte[] body, OutputStream out) throws IOException
+	{
+		boolean search = false;
+		Solution.Format format = Solution.Format.BASE64;
+		boolean picture = false;
+		for (int i = 3; i < words.length; i++)
+		{
+			if (words[i].equals("search"))
+				search = true;
+			else if (words[i].equals("picture"))
+				picture = true;
+			else
+			{
+				try {
+					format = Solution.Format.valueOf(words[i].toUpperCase());
+				} catch (IllegalArgumentException e) {
+					error(out,"unknown option " + words[i]);
+					return;
+				}
+			}
+		}
+
+		SlitherBatch.Puzzle p;
+		try {
+			p = puzzle(words[1],body);
+		} catch (IOException | RuntimeException e) {
+			error(out,e.getMessage());
+			return;
+		}
+		SlitherBatch.Result r = (search ? searching : plain).solve(p);
+		synchronized (this) {
+			served++;
+		}
+		if (r.status.startsWith(SlitherBatch.ERROR))
+			error(out,r.status.substring(SlitherBatch.ERROR.length()+2));
+		else if (r.status.equals(SlitherBatch.UNSOLVABLE))
+			reply(out,r.status,new byte[0]);
+		else if (picture)
+		{
+			//the board's own renderer, which comes back out of the pool with it
+			if (r.board.renderer == null)
+				r.board.renderer = new BoardRenderer(r.board.rows,r.board.cols);
+			BoardRenderer renderer = r.board.renderer.render(r.board,false,true);
+			reply(out,r.status,renderer.out,renderer.length());
+		}
+		else
+			reply(out,r.status,Solution.of(r.board).toBytes(format));
+		if (r.board != null)
+			pool.give(r.board);
+	}
+	synchronized int served()
+	{
+		return served;
+	}
+	static SlitherBatch.Puzzle puzzle(String format, byte[] body) throws IOException
+	{
+		if (format.equals("text"))
+		{
+			PuzzleParser parser = PuzzleParser.parse(body);
+			checkSize(parser.rows,parser.cols);
+			return new SlitherBatch.Puzzle("request",parser.rows,parser.cols,parser.clues);
+		}
+		if (format.equals("html"))
+		{
+			HtmlBoardReader page = HtmlBoardReader.read(Channels.newChannel(new ByteArrayInputStream(body)));
+			checkSize(page.rows,page.cols);
+			return new SlitherBatch.Puzzle("request",page.rows,page.cols,page.clues);
+		}
+		if (format.equals("packed"))
+		{
+			ByteBuffer in = ByteBuffer.wrap(body);
+			if (body.length < 4)
+				throw new IOException("packed puzzle cut short");
+			int rows = in.getShort() & 0xFFFF;
+			int cols = in.getShort() & 0xFFFF;
+			checkSize(rows,cols);
+			if (body.length < 4 + PuzzleArchive.packedSize((long)rows*cols))
+				throw new IOException("packed puzzle cut short");
+			byte[] clues = new byte[rows*cols];
+			PuzzleArchive.unpack(in,4,clues.length,clues);
+			return new SlitherBatch.Puzzle("request",rows,cols,clues);
+		}
+		throw new IOException("unknown puzzle format " + format);
+	}
+
+	static void checkSize(int rows, int cols) throws IOException
+	{
+		if ((long)rows*cols > MAX_CELLS)
+			throw new IOException(rows + "x" + cols + " is more than the " + MAX_CELLS + " cells a request can have");
+	}
+
+	static void error(OutputStream out, String message) throws IOException
+	{
+		reply(out,SlitherBatch.ERROR,String.valueOf(message).getBytes(StandardCharsets.UTF_8));
+	}
+	static void reply(OutputStream out, String status, byte[] body) throws IOException
+	{
+		reply(out,status,body,body.length);
+	}
+	static void reply(OutputStream out, String status, byte[] body, int length) throws IOException
+	{
+		out.write((status + " " + length + "\n").getBytes(StandardCharsets.US_ASCII));
+		out.write(body,0,length);
+	}
+	//null at the end of the stream; a request line is short, so anything long is cut off
+	static String readLine(InputStream in) throws IOException
+	{
+		StringBuilder line = new StringBuilder();
+		int b;
+		while ((b = in.read()) >= 0 && b != '\n')
+			if (line.length() < 1024 && b != '\r')
+				line.append((char)b);
+		if (b < 0 && line.length() == 0)
+			return null;
+		return line.toString();
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		int port = DEFAULT_PORT;
+		Path socket = null;
+		File warm = new File("testcases");
+		String cacheFile = null;
+		long warmMillis = WARM_MILLIS;
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-port"))
+				port = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-socket"))
+				socket = Paths.get(args[++i]);
+			else if (args[i].equals("-warm"))
+				warm = new File(args[++i]);
+			else if (args[i].equals("-warmtime"))
+				warmMillis = (long)(Double.parseDouble(args[++i])*1000);
+			else if (args[i].equals("-cache"))
+				cacheFile = args[++i];
+		}
+
+		SlitherServer server = new SlitherServer();
+		if (cacheFile != null)
+		{
+			SolutionCache cache = new SolutionCache(SolutionCache.DEFAULT_CAPACITY,Paths.get(cacheFile));
+			server.useCache(cache);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					cache.save();
+				} catch (IOException e) {
+					System.err.println("couldn't save the cache: " + e.getMessage());
+				}
+			}));
+		}
+		if (warmMillis > 0)
+		{
+			if (warm.isDirectory())
+				server.warmUp(warm,warmMillis);
+			else
+				System.err.println("no " + warm + " to warm up on");
+		}
+
+		ServerSocketChannel channel;
+		SocketAddress address;
+		if (socket != null)
+		{
+			Files.deleteIfExists(socket);
+			channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+			address = UnixDomainSocketAddress.of(socket);
+			final Path s = socket;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					Files.deleteIfExists(s);
+				} catch (IOException e) {}
+			}));
+		}
+		else
+		{
+			channel = ServerSocketChannel.open();
+			address = new InetSocketAddress(InetAddress.getLoopbackAddress(),port);
+		}
+		channel.bind(address);
+		System.err.println("listening on " + address);
+		server.serve(channel);
+	}
+}
@@ -0,0 +1,1009 @@
+//the same solver as SlitherSolverOO, but without the Cell/Edge/Vertex object graph:
+//edge states, vertex masks, vertex colors and clues all live in flat primitive arrays,
+//indexed with the same arithmetic as the notes at the top of SlitherSolverOO
+
+import java.util.*;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+public class SlitherSolverFlat
+{
+	//Some notes on indices!
+	//w is cols+1, the width of both the vertex grid and the edge grid
+	//edge row,col (as in SlitherSolverOO's edges[rows*2+1][cols+1]) is edge[row*w+col]
+	//vertex row,col is vstate[row*w+col] and vcolor[row*w+col]
+	//cell row,col is clue[row*cols+col] and done[row*cols+col]
+
+	//a cell's neighboring edges:
+	//		up = row*2*w+col
+	//left = up+w	right = up+w+1
+	//		down = up+2*w
+	//a cell's neighboring vertices:
+	//ul = row*w+col	ur = ul+1
+	//ld = ul+w		rd = ul+w+1
+
+	//a vertex's neighboring vertices are v-w, v-1, v+1 and v+w
+	//a vertex's neighboring edges (if they exist):
+	//		(row*2-1)*w+col
+	//row*2*w+col-1	row*2*w+col
+	//		(row*2+1)*w+col
+
+	//an edge's vertices:
+	//ul = (row/2)*w+col
+	//rd = ul+1 if horizontal, ul+w if vertical
+
+	static final byte NO_INFO = SlitherSolverOO.NO_INFO;
+	static final byte EDGE_UP = SlitherSolverOO.EDGE_UP;
+	static final byte EDGE_LEFT = SlitherSolverOO.EDGE_LEFT;
+	static final byte EDGE_RIGHT = SlitherSolverOO.EDGE_RIGHT;
+	static final byte EDGE_DOWN = SlitherSolverOO.EDGE_DOWN;
+
+	static final int UNKNOWN = SlitherSolverOO.UNKNOWN;
+	static final int OFF = SlitherSolverOO.OFF;
+
+	static final byte UL = SlitherSolverOO.UL;
+	static final byte UR = SlitherSolverOO.UR;
+	static final byte UD = SlitherSolverOO.UD;
+	static final byte LR = SlitherSolverOO.LR;
+	static final byte LD = SlitherSolverOO.LD;
+	static final byte RD = SlitherSolverOO.RD;
+	static final byte UNUSED = SlitherSolverOO.UNUSED;
+	static final byte ALL = SlitherSolverOO.ALL;
+
+	int rows, cols, w;
+	byte[] clue;
+	boolean[] done;
+	int[] edge;
+	byte[] vstate;
+	int[] vcolor;
+	LoopSets loops;
+	int iters;
+	int on; //edges on, for finishes()
+
+	CellQueue queue;
+	//vertices whose mask or edges changed since updateVertex() last looked at them
+	CellQueue dirty;
+	//kept for print(), made the first time it's needed
+	BoardRenderer renderer;
+
+	public SlitherSolverFlat(String inSource)
+	{
+		this(PuzzleParser.parse(inSource.getBytes(StandardCharsets.UTF_8)));
+	}
+	public SlitherSolverFlat(InputStream inSource)
+	{
+		this(PuzzleParser.parse(SlitherSolverOO.readAll(inSource)));
+	}
+	SlitherSolverFlat(PuzzleParser p)
+	{
+		rows = p.rows;
+		cols = p.cols;
+		init();
+		for (int position = 0; position < rows*cols; position++)
+		{
+			clue[position] = p.clues[position];
+			if (clue[position] != NO_INFO)
+				cellBecomesInteresting(position);
+		}
+		enqueueNext();
+	}
+
+	public SlitherSolverFlat(int r, int c)
+	{
+		rows = r;
+		cols = c;
+		init();
+	}
+	//nothing allocated; for views onto another board's arrays (see SlitherSolverTiled)
+	SlitherSolverFlat()
+	{
+	}
+
+	//assuming rows and cols have already been set, finish constructing
+	public void init()
+	{
+		w = cols+1;
+		int cellCount = rows*cols;
+
+		clue = new byte[cellCount];
+		done = new boolean[cellCount];
+		edge = new int[(rows*2+1)*w];
+		vstate = new byte[(rows+1)*w];
+		vcolor = new int[(rows+1)*w];
+
+		queue = new CellQueue(cellCount);
+		dirty = new CellQueue((rows+1)*w);
+
+		loops = new LoopSets(rows+cols+2);
+
+		Arrays.fill(clue,NO_INFO);
+		for (int r = 0; r < rows+1; r++)
+		{
+			for (int c = 0; c < cols+1; c++)
+			{
+				byte subtract = 0x00;
+				if (r == 0)
+					subtract |= (UL | UR | UD);
+				else if (r == rows)
+					subtract |= (UD | LD | RD);
+				if (c == 0)
+					subtract |= (UL | LR | LD);
+				else if (c == cols)
+					subtract |= (UR | LR | RD);
+				vstate[r*w+c] = (byte)(ALL - subtract);
+			}
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		boolean html = false;
+		boolean sweep = false;
+		for (String arg : args)
+		{
+			if (arg.equals("-sweep"))
+				sweep = true;
+			else
+				html = true;
+		}
+		SlitherSolverFlat s;
+		try {
+			if (html)
+				s = new SlitherSolverFlat(SlitherSolverOO.stripHTML(System.in));
+			else
+				s = new SlitherSolverFlat(System.in);
+		} catch (PuzzleFormatException e) {
+			System.err.println(e.getMessage());
+			return;
+		} catch (UncheckedIOException e) {
+			System.err.println(e.getCause().getMessage());
+			return;
+		}
+
+		if (sweep)
+			System.err.println("quota sweep: " + s.fillSaturated());
+		s.solve();
+
+		s.print(false);
+	}
+	public void solve()
+	{
+		while (!queue.isEmpty())
+		{
+			int c = queue.poll();
+			if (done[c]) continue;
+			iters++;
+
+			int row = c/cols;
+			int col = c%cols;
+			if (clue[c] == 0x00)
+			{
+				int up = row*2*w+col;
+				setEdge(up,OFF);
+				setEdge(up+w,OFF);
+				setEdge(up+w+1,OFF);
+				setEdge(up+2*w,OFF);
+				done[c] = true;
+				updateDirtyVertices();
+			}
+			else
+			{
+				updateDirtyVertices();
+				while (stayOpen(c))
+					updateDirtyVertices();
+				if (clue[c] == 0x01)
+				{
+					resolveOneCell(c);
+				}
+				else if (clue[c] == 0x02)
+				{
+					resolveTwoCell(c);
+				}
+				else if (clue[c] == 0x03)
+				{
+					resolveThreeCell(c);
+				}
+				else if (clue[c] == 0x04)
+				{
+					//impossible
+				}
+				else if (clue[c] == NO_INFO)
+				{
+					int up = row*2*w+col;
+					if (edge[up] != UNKNOWN && edge[up+w] != UNKNOWN &&
+						edge[up+w+1] != UNKNOWN && edge[up+2*w] != UNKNOWN)
+					{
+						done[c] = true;
+					}
+				}
+			}
+			enqueueNext();
+		}
+	}
+
+	public void enqueueNext()
+	{
+		queue.enqueueNext();
+	}
+	//settle every cell a QuotaSweep finds with its quota filled, and sweep again, until it finds none;
+	//whatever that sets off goes in the queue as usual, for solve(). returns the sweep it used
+	public QuotaSweep fillSaturated()
+	{
+		QuotaSweep sweep = QuotaSweep.of(this);
+		int[] found = new int[rows*cols];
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			int count = sweep.sweep(edge,found);
+			for (int i = 0; i < count; i++)
+			{
+				int c = found[i];
+				if (done[c])
+					continue;
+				//an earlier one may have changed this one's edges since the sweep
+				int what = sweep.saturated(edge,c);
+				if (what == QuotaSweep.OPEN)
+					continue;
+				int up = (c/cols)*2*w+c%cols;
+				if (what == QuotaSweep.REST_OFF)
+				{
+					removeEdge(up);
+					removeEdge(up+w);
+					removeEdge(up+w+1);
+					removeEdge(up+2*w);
+				}
+				else if (what == QuotaSweep.REST_ON)
+				{
+					addEdge(up);
+					addEdge(up+w);
+					addEdge(up+w+1);
+					addEdge(up+2*w);
+				}
+				done[c] = true;
+				updateDirtyVertices();
+				changed = true;
+			}
+		}
+		return sweep;
+	}
+	public boolean fillCellQuota(int c)
+	{
+		int up = (c/cols)*2*w+c%cols;
+		int offEdges = 0;
+		if (edge[up] == OFF) offEdges++;
+		if (edge[up+w] == OFF) offEdges++;
+		if (edge[up+w+1] == OFF) offEdges++;
+		if (edge[up+2*w] == OFF) offEdges++;
+		if (offEdges == 4-clue[c])
+		{
+			addEdge(up);
+			addEdge(up+w);
+			addEdge(up+w+1);
+			addEdge(up+2*w);
+			return true;
+		}
+		return false;
+	}
+	public boolean stayOpen(int c)
+	{
+		int up = (c/cols)*2*w+c%cols;
+		boolean changed = false;
+		changed |= stayOpenEdge(up,c);
+		changed |= stayOpenEdge(up+w,c);
+		changed |= stayOpenEdge(up+w+1,c);
+		changed |= stayOpenEdge(up+2*w,c);
+		return changed;
+	}
+	boolean stayOpenEdge(int e, int c)
+	{
+		if (edge[e] != UNKNOWN) return false;
+		int v1 = edgeVertexUL(e);
+		int v2 = edgeVertexRD(e);
+		if (vcolor[v1] > 0 && vcolor[v2] > 0 && loops.same(vcolor[v1],vcolor[v2]) && !finishes(e,vcolor[v1]))
+		{
+			setEdge(e,OFF);
+			vertexBecomesInteresting(v1,c);
+			vertexBecomesInteresting(v2,c);
+			return true;
+		}
+		return false;
+	}
+	//whether closing segment color with e makes the whole answer: no on edges anywhere else, every clue met.
+	//any other closure is too early, and e stays open
+	boolean finishes(int e, int color)
+	{
+		if (onEdges() != loops.length(color))
+			return false;
+		for (int c = 0; c < rows*cols; c++)
+		{
+			if (clue[c] == NO_INFO) continue;
+			int up = (c/cols)*2*w+c%cols;
+			int count = 0;
+			count += edge[up] > OFF || up == e ? 1 : 0;
+			count += edge[up+w] > OFF || up+w == e ? 1 : 0;
+			count += edge[up+w+1] > OFF || up+w+1 == e ? 1 : 0;
+			count += edge[up+2*w] > OFF || up+2*w == e ? 1 : 0;
+			if (count != clue[c]) return false;
+		}
+		return true;
+	}
+	public void resolveOneCell(int c)
+	{
+		int row = c/cols;
+		int col = c%cols;
+		int up = row*2*w+col, left = up+w, right = up+w+1, down = up+2*w;
+		int ul = row*w+col, ur = ul+1, ld = ul+w, rd = ul+w+1;
+
+		int onEdge = -1;
+		if (edge[up] > OFF) onEdge = up;
+		if (edge[left] > OFF) onEdge = left;
+		if (edge[right] > OFF) onEdge = right;
+		if (edge[down] > OFF) onEdge = down;
+
+		if (onEdge >= 0)
+		{
+			if (onEdge != up) removeEdge(up);
+			if (onEdge != left) removeEdge(left);
+			if (onEdge != right) removeEdge(right);
+			if (onEdge != down) removeEdge(down);
+			done[c] = true;
+			updateDirtyVertices();
+		}
+		else
+		{
+			boolean changed = true;
+
+			while (changed)
+			{
+				byte sUL = vstate[ul], sUR = vstate[ur], sLD = vstate[ld], sRD = vstate[rd];
+
+				//receive signal
+				if ((vstate[ul]&(UL|UNUSED))==0)
+				{
+					removeEdge(right);
+					removeEdge(down);
+				}
+				if ((vstate[ur]&(UR|UNUSED))==0)
+				{
+					removeEdge(left);
+					removeEdge(down);
+				}
+				if ((vstate[ld]&(LD|UNUSED))==0)
+				{
+					removeEdge(right);
+					removeEdge(up);
+				}
+				if ((vstate[rd]&(RD|UNUSED))==0)
+				{
+					removeEdge(left);
+					removeEdge(up);
+				}
+				//require a tail
+				if (edge[up] == OFF && edge[left] == OFF)
+				{
+					updateMask(rd,ALL - (UL | RD | UNUSED),c);
+				}
+				if (edge[up] == OFF && edge[right] == OFF)
+				{
+					updateMask(ld,ALL - (UR | LD | UNUSED),c);
+				}
+				if (edge[down] == OFF && edge[left] == OFF)
+				{
+					updateMask(ur,ALL - (LD | UR | UNUSED),c);
+				}
+				if (edge[down] == OFF && edge[right] == OFF)
+				{
+					updateMask(ul,ALL - (UL | RD | UNUSED),c);
+				}
+
+				updateMask(ul,ALL - RD,c);
+				updateMask(ur,ALL - LD,c);
+				updateMask(ld,ALL - UR,c);
+				updateMask(rd,ALL - UL,c);
+				updateDirtyVertices();
+
+				changed = sUL != vstate[ul] || sUR != vstate[ur] || sLD != vstate[ld] || sRD != vstate[rd];
+			}//while(changed)
+
+			if (fillCellQuota(c))
+			{
+				done[c] = true;
+				updateDirtyVertices();
+			}
+		}
+	}
+	public void resolveTwoCell(int c)
+	{
+		int row = c/cols;
+		int col = c%cols;
+		int up = row*2*w+col, left = up+w, right = up+w+1, down = up+2*w;
+		int ul = row*w+col, ur = ul+1, ld = ul+w, rd = ul+w+1;
+
+		int onEdges = 0;
+		if (edge[up] > OFF) onEdges++;
+		if (edge[left] > OFF) onEdges++;
+		if (edge[right] > OFF) onEdges++;
+		if (edge[down] > OFF) onEdges++;
+
+		if (onEdges == 2)
+		{
+			removeEdge(up);
+			removeEdge(left);
+			removeEdge(right);
+			removeEdge(down);
+			done[c] = true;
+			updateDirtyVertices();
+			return;
+		}
+
+		boolean changed = true;
+
+		while (changed)
+		{
+			byte sUL = vstate[ul], sUR = vstate[ur], sLD = vstate[ld], sRD = vstate[rd];
+
+			//propagate that signal
+			byte rdMask = ALL;
+			if ((vstate[ul] & RD) == 0)
+			{
+				rdMask &= ALL - RD;
+			}
+			if ((vstate[ul] & (UL | UNUSED)) == 0)
+			{
+				rdMask &= ALL - UL;
+			}
+			if ((vstate[ul] & (RD | UL | UNUSED)) == 0)
+			{
+				rdMask &= ALL - UNUSED;
+			}
+			if (rdMask != ALL)
+			{
+				updateMask(rd,rdMask,c);
+			}
+
+			byte ldMask = ALL;
+			if ((vstate[ur] & LD) == 0)
+			{
+				ldMask &= ALL - LD;
+			}
+			if ((vstate[ur] & (UR | UNUSED)) == 0)
+			{
+				ldMask &= ALL - UR;
+			}
+			if ((vstate[ur] & (LD | UR | UNUSED)) == 0)
+			{
+				ldMask &= ALL - UNUSED;
+			}
+			if (ldMask != ALL)
+			{
+				updateMask(ld,ldMask,c);
+			}
+
+			byte urMask = ALL;
+			if ((vstate[ld] & UR) == 0)
+			{
+				urMask &= ALL - UR;
+			}
+			if ((vstate[ld] & (LD | UNUSED)) == 0)
+			{
+				urMask &= ALL - LD;
+			}
+			if ((vstate[ld] & (UR | LD | UNUSED)) == 0)
+			{
+				urMask &= ALL - UNUSED;
+			}
+			if (urMask != ALL)
+			{
+				updateMask(ur,urMask,c);
+			}
+
+			byte ulMask = ALL;
+			if ((vstate[rd] & UL) == 0)
+			{
+				ulMask &= ALL - UL;
+			}
+			if ((vstate[rd] & (RD | UNUSED)) == 0)
+			{
+				ulMask &= ALL - RD;
+			}
+			if ((vstate[rd] & (UL | RD | UNUSED)) == 0)
+			{
+				ulMask &= ALL - UNUSED;
+			}
+			if (ulMask != ALL)
+			{
+				updateMask(ul,ulMask,c);
+			}
+
+			//the both-or-neither case
+			if (vstate[ul] == (RD | UNUSED))
+			{
+				updateMask(rd,RD | UL | UNUSED,c);
+				updateMask(ur,ALL - (UR | LD | UNUSED),c);
+				updateMask(ld,ALL - (UR | LD | UNUSED),c);
+			}
+			if (vstate[ur] == (LD | UNUSED))
+			{
+				updateMask(ld,LD | UR | UNUSED,c);
+				updateMask(ul,ALL - (UL | RD | UNUSED),c);
+				updateMask(rd,ALL - (UL | RD | UNUSED),c);
+			}
+			if (vstate[ld] == (UR | UNUSED))
+			{
+				updateMask(ur,UR | LD | UNUSED,c);
+				updateMask(ul,ALL - (UL | RD | UNUSED),c);
+				updateMask(rd,ALL - (UL | RD | UNUSED),c);
+			}
+			if (vstate[rd] == (UL | UNUSED))
+			{
+				updateMask(ul,UL | RD | UNUSED,c);
+				updateMask(ur,ALL - (UR | LD | UNUSED),c);
+				updateMask(ld,ALL - (UR | LD | UNUSED),c);
+			}
+			//process of elimination
+			//also: prevent poking us with a corner when we have nowhere to go
+			if (edge[up] == OFF)
+			{
+				if ((vstate[ld]&UR)==0)
+				{
+					addEdge(right);
+				}
+				if ((vstate[rd]&UL)==0)
+				{
+					addEdge(left);
+				}
+				updateMask(ld,ALL-(LD|UNUSED),c);
+				updateMask(rd,ALL-(RD|UNUSED),c);
+			}
+			if (edge[left] == OFF)
+			{
+				if ((vstate[ur]&LD)==0)
+				{
+					addEdge(down);
+				}
+				if ((vstate[rd]&UL)==0)
+				{
+					addEdge(up);
+				}
+				updateMask(ur,ALL-(UR|UNUSED),c);
+				updateMask(rd,ALL-(RD|UNUSED),c);
+			}
+			if (edge[right] == OFF)
+			{
+				if ((vstate[ul]&RD)==0)
+				{
+					addEdge(down);
+				}
+				if ((vstate[ld]&UR)==0)
+				{
+					addEdge(up);
+				}
+				updateMask(ul,ALL-(UL|UNUSED),c);
+				updateMask(ld,ALL-(LD|UNUSED),c);
+			}
+			if (edge[down] == OFF)
+			{
+				if ((vstate[ul]&RD)==0)
+				{
+					addEdge(right);
+				}
+				if ((vstate[ur]&LD)==0)
+				{
+					addEdge(left);
+				}
+				updateMask(ul,ALL-(UL|UNUSED),c);
+				updateMask(ur,ALL-(UR|UNUSED),c);
+			}
+			//on edge adjacent to off edge
+			if (edge[up] > OFF && edge[left] == OFF ||
+				edge[up] == OFF && edge[left] > OFF)
+			{
+				updateMask(rd,ALL - (UL | RD | UNUSED),c);
+			}
+			if (edge[up] > OFF && edge[right] == OFF ||
+				edge[up] == OFF && edge[right] > OFF)
+			{
+				updateMask(ld,ALL - (UR | LD | UNUSED),c);
+			}
+			if (edge[down] > OFF && edge[left] == OFF ||
+				edge[down] == OFF && edge[left] > OFF)
+			{
+				updateMask(ur,ALL - (UR | LD | UNUSED),c);
+			}
+			if (edge[down] > OFF && edge[right] == OFF ||
+				edge[down] == OFF && edge[right] > OFF)
+			{
+				updateMask(ul,ALL - (UL | RD | UNUSED),c);
+			}
+
+			updateDirtyVertices();
+
+			changed = sUL != vstate[ul] || sUR != vstate[ur] || sLD != vstate[ld] || sRD != vstate[rd];
+		} //while(changed)
+
+		if (fillCellQuota(c))
+		{
+			done[c] = true;
+			updateDirtyVertices();
+		}
+	}
+	public void resolveThreeCell(int c)
+	{
+		int row = c/cols;
+		int col = c%cols;
+		int up = row*2*w+col, left = up+w, right = up+w+1, down = up+2*w;
+		int ul = row*w+col, ur = ul+1, ld = ul+w, rd = ul+w+1;
+
+		int onEdges = 0;
+		if (edge[up] > OFF) onEdges++;
+		if (edge[left] > OFF) onEdges++;
+		if (edge[right] > OFF) onEdges++;
+		if (edge[down] > OFF) onEdges++;
+
+		if (onEdges == 3)
+		{
+			removeEdge(up);
+			removeEdge(left);
+			removeEdge(right);
+			removeEdge(down);
+			done[c] = true;
+			updateDirtyVertices();
+			return;
+		}
+
+		boolean changed = true;
+
+		while (changed)
+		{
+			byte sUL = vstate[ul], sUR = vstate[ur], sLD = vstate[ld], sRD = vstate[rd];
+
+			//pigeonhole principle
+			if ((vstate[ul]&RD) == 0)
+			{
+				addEdge(right);
+				addEdge(down);
+			}
+			if ((vstate[ur]&LD) == 0)
+			{
+				addEdge(left);
+				addEdge(down);
+			}
+			if ((vstate[ld]&UR) == 0)
+			{
+				addEdge(up);
+				addEdge(right);
+			}
+			if ((vstate[rd]&UL) == 0)
+			{
+				addEdge(up);
+				addEdge(left);
+			}
+
+			//send a signal
+			if (vstate[ul] == RD)
+			{
+				updateMask(rd,ALL-UL,c);
+			}
+			if (vstate[ur] == LD)
+			{
+				updateMask(ld,ALL-UR,c);
+			}
+			if (vstate[ld] == UR)
+			{
+				updateMask(ur,ALL-LD,c);
+			}
+			if (vstate[rd] == UL)
+			{
+				updateMask(ul,ALL-RD,c);
+			}
+
+			//adjacent threes
+			if (row > 0 && clue[c-cols] == 3)
+			{
+				addEdge(up);
+				addEdge(down);
+				updateMask(ul,UR | RD,c);
+				updateMask(ur,UL | LD,c);
+			}
+			if (row < rows-1 && clue[c+cols] == 3)
+			{
+				addEdge(up);
+				addEdge(down);
+				updateMask(ld,UR | RD,c);
+				updateMask(rd,UL | LD,c);
+			}
+			if (col > 0 && clue[c-1] == 3)
+			{
+				addEdge(left);
+				addEdge(right);
+				updateMask(ul,LD | RD,c);
+				updateMask(ld,UL | UR,c);
+			}
+			if (col < cols-1 && clue[c+1] == 3)
+			{
+				addEdge(left);
+				addEdge(right);
+				updateMask(ur,LD | RD,c);
+				updateMask(rd,UL | UR,c);
+			}
+
+			updateMask(ul,ALL - (UL | UNUSED),c);
+			updateMask(ur,ALL - (UR | UNUSED),c);
+			updateMask(ld,ALL - (LD | UNUSED),c);
+			updateMask(rd,ALL - (RD | UNUSED),c);
+			updateDirtyVertices();
+
+			changed = sUL != vstate[ul] || sUR != vstate[ur] || sLD != vstate[ld] || sRD != vstate[rd];
+		} //while(changed)
+
+		if (fillCellQuota(c))
+		{
+			done[c] = true;
+			updateDirtyVertices();
+		}
+	}
+	public void addEdge(int e)
+	{
+		if (edge[e] != UNKNOWN) return;
+		int v1 = edgeVertexUL(e);
+		if ((e/w)%2 == 0)
+		{
+			matchColors(v1,EDGE_RIGHT);
+		}
+		else
+		{
+			matchColors(v1,EDGE_DOWN);
+		}
+		vertexBecomesInteresting(v1);
+		vertexBecomesInteresting(edgeVertexRD(e));
+	}
+	public void removeEdge(int e)
+	{
+		if (edge[e] != UNKNOWN) return;
+		setEdge(e,OFF);
+		vertexBecomesInteresting(edgeVertexUL(e));
+		vertexBecomesInteresting(edgeVertexRD(e));
+	}
+	//rerun updateVertex() wherever something changed, until nothing does
+	public void updateDirtyVertices()
+	{
+		dirty.enqueueNext();
+		while (!dirty.isEmpty())
+		{
+			int v = dirty.poll();
+			updateVertex(v/w,v%w);
+			dirty.enqueueNext();
+		}
+	}
+	//this and setMask() are the only places edges and masks change, so SlitherSolverTiled can make them atomic
+	void setEdge(int e, int state)
+	{
+		on += (state > OFF ? 1 : 0) - (edge[e] > OFF ? 1 : 0);
+		edge[e] = state;
+		dirty.add(edgeVertexUL(e));
+		dirty.add(edgeVertexRD(e));
+	}
+	int onEdges()
+	{
+		return on;
+	}
+	//masks only ever lose bits; state has none that vstate[v] doesn't
+	void setMask(int v, byte state)
+	{
+		vstate[v] = state;
+	}
+	//see VertexTable
+	public void updateVertex(int row, int col)
+	{
+		int vert = row*w+col;
+		int up = row > 0 ? edge[(row*2-1)*w+col] : OFF;
+		int left = col > 0 ? edge[row*2*w+col-1] : OFF;
+		int right = col < cols ? edge[row*2*w+col] : OFF;
+		int down = row < rows ? edge[(row*2+1)*w+col] : OFF;
+		int entry = VertexTable.lookup(vstate[vert],up,left,right,down);
+		setMask(vert,(byte)(entry & VertexTable.MASK));
+		if ((entry & ~VertexTable.MASK) == 0)
+			return;
+		for (byte d = EDGE_UP; d <= EDGE_DOWN; d++)
+		{
+			if (VertexTable.on(entry,d) && matchColors(vert,d))
+				vertexBecomesInteresting(neighbor(vert,d));
+			if (VertexTable.off(entry,d))
+			{
+				setEdge(vertexEdge(vert,d),OFF);
+				vertexBecomesInteresting(neighbor(vert,d));
+			}
+		}
+		if ((entry & VertexTable.INTERESTING) != 0)
+			vertexBecomesInteresting(vert);
+	}
+	//returns true iff something was changed
+	public boolean matchColors(int v1, byte dir)
+	{
+		int v2 = neighbor(v1,dir);
+		int e = vertexEdge(v1,dir);
+
+		give(v2,reverse(dir));
+
+		int newColor;
+		if (vcolor[v1] == 0 && vcolor[v2] == 0) //first connection for both
+		{
+			newColor = loops.create(v1,v2);
+			vcolor[v1] = newColor;
+			vcolor[v2] = newColor;
+			setEdge(e,newColor);
+			return true;
+		}
+		if (vcolor[v1] != 0 && vcolor[v2] != 0 && loops.same(vcolor[v1],vcolor[v2])) //already the same, fill in the edge just in case
+		{
+			if (edge[e] > OFF) return false;
+			setEdge(e,loops.close(vcolor[v1]));
+			return true;
+		}
+		//if either one is unused, it joins the segment of the other
+		if (vcolor[v1] == 0)
+		{
+			newColor = loops.extend(vcolor[v2],v2,v1);
+			vcolor[v1] = newColor;
+			setEdge(e,newColor);
+			return true;
+		}
+		if (vcolor[v2] == 0)
+		{
+			newColor = loops.extend(vcolor[v1],v1,v2);
+			vcolor[v2] = newColor;
+			setEdge(e,newColor);
+			return true;
+		}
+		//if both are used, the two segments become one set; the far end of v2's segment is a loose end of something longer
+		int far = loops.otherEnd(vcolor[v2],v2);
+		setEdge(e,loops.join(vcolor[v1],v1,vcolor[v2],v2));
+		vertexBecomesInteresting(far);
+
+		return true;
+	}
+	public void updateMask(int v, int mask, int toExclude)
+	{
+		byte newState = (byte)(vstate[v] & mask);
+		if (newState != vstate[v])
+		{
+			setMask(v,newState);
+			dirty.add(v);
+			vertexBecomesInteresting(v,toExclude);
+		}
+	}
+	public void give(int v, byte dir)
+	{
+		byte oldState = vstate[v];
+		byte newState = oldState;
+		switch(dir)
+		{
+			case EDGE_UP:
+				newState &= ALL - (UNUSED | LR | LD | RD);
+				break;
+			case EDGE_LEFT:
+				newState &= ALL - (UNUSED | UR | UD | RD);
+				break;
+			case EDGE_RIGHT:
+				newState &= ALL - (UNUSED | UL | LD | UD);
+				break;
+			case EDGE_DOWN:
+				newState &= ALL - (UNUSED | LR | UL | UR);
+				break;
+			default:
+				break;
+		}
+		if (newState != oldState)
+		{
+			setMask(v,newState);
+			dirty.add(v);
+		}
+	}
+	public void vertexBecomesInteresting(int v)
+	{
+		vertexBecomesInteresting(v,-1);
+	}
+	public void vertexBecomesInteresting(int v, int toExclude)
+	{
+		int r = v/w;
+		int c = v%w;
+		if (r > 0)
+		{
+			if (c > 0 && (r-1)*cols+c-1 != toExclude)
+				cellBecomesInteresting((r-1)*cols+c-1);
+			if (c < cols && (r-1)*cols+c != toExclude)
+				cellBecomesInteresting((r-1)*cols+c);
+		}
+		if (r < rows)
+		{
+			if (c > 0 && r*cols+c-1 != toExclude)
+				cellBecomesInteresting(r*cols+c-1);
+			if (c < cols && r*cols+c != toExclude)
+				cellBecomesInteresting(r*cols+c);
+		}
+	}
+	public void cellBecomesInteresting(int c)
+	{
+		if (!done[c])
+			queue.add(c);
+	}
+
+	//index helpers; see the notes at the top
+	int edgeVertexUL(int e)
+	{
+		return (e/w/2)*w + e%w;
+	}
+	int edgeVertexRD(int e)
+	{
+		return edgeVertexUL(e) + ((e/w)%2 == 0 ? 1 : w);
+	}
+	//-1 if the vertex has no edge in that direction
+	int vertexEdge(int v, byte dir)
+	{
+		int r = v/w;
+		int c = v%w;
+		switch(dir)
+		{
+			case EDGE_UP:
+				return (r > 0?(r*2-1)*w+c:-1);
+			case EDGE_LEFT:
+				return (c > 0?r*2*w+c-1:-1);
+			case EDGE_RIGHT:
+				return (c < cols?r*2*w+c:-1);
+			case EDGE_DOWN:
+				return (r < rows?(r*2+1)*w+c:-1);
+			default:
+				return -1;
+		}
+	}
+	int neighbor(int v, byte dir)
+	{
+		switch(dir)
+		{
+			case EDGE_UP:
+				return v-w;
+			case EDGE_LEFT:
+				return v-1;
+			case EDGE_RIGHT:
+				return v+1;
+			case EDGE_DOWN:
+				return v+w;
+			default:
+				return -1;
+		}
+	}
+	public byte reverse(byte dir)
+	{
+		switch(dir)
+		{
+			case EDGE_UP:
+				return EDGE_DOWN;
+			case EDGE_LEFT:
+				return EDGE_RIGHT;
+			case EDGE_RIGHT:
+				return EDGE_LEFT;
+			case EDGE_DOWN:
+				return EDGE_UP;
+			default:
+				return 0x00;
+		}
+	}
+
+	public void print(boolean showXs)
+	{
+		print(showXs,true);
+	}
+	public void print(boolean showXs, boolean unicode)
+	{
+		if (renderer == null)
+			renderer = new BoardRenderer(rows,cols);
+		try {
+			renderer.render(this,showXs,unicode).writeTo(System.out);
+		} catch (IOException e) {
+			System.err.println("printing failed");
+		}
+	}
+}
@@ -4,11 +4,14 @@
 //a cell must match its clues
 
 import java.util.*;
-import java.io.StringReader;
 import java.io.PrintStream;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
 
 public class SlitherSolverOO
 {
@@ -75,27 +78,59 @@ public class SlitherSolverOO
 	
 	int rows, cols;
 	Cell[][] cells;
-	HashSet<Cell> interesting;
-	LinkedList<Cell> queue;
+	CellQueue queue;
+	boolean priority; //whether queue is a PriorityCellQueue (see usePriorityQueue()), so init() makes the same kind again
+	//vertices whose mask or edges changed since updateVertex() last looked at them
+	CellQueue dirty;
 	Edge[][] edges;
 	Vertex[][] vertices;
-	int nextColor;
+	LoopSets loops;
+	SolveListener listener = SolveListener.NONE;
+	//set when propagation runs into something impossible; see consistent()
+	boolean contradiction;
+	boolean loopClosed;
+	//kept for print(), made the first time it's needed; copies get their own
+	BoardRenderer renderer;
+	//null unless someone wants to know what each rule is doing; copies share it
+	RuleStats stats;
+	int decided; //edges set so far, for stats
+	int onEdges; //edges on, for finishes()
+	//null unless the pattern rules are on; copies share it
+	PatternLibrary patterns;
+	//the same for the window table
+	WindowTable windows;
+	byte[] scratch = new byte[4]; //vertex states around the cell, for the resolve*Cell() loops
+	boolean[] reached; //for connectable(), kept from one call to the next
+	int[] stack;
+	int[] side; //for sides(): the cells and the outside as sets that are on the same or opposite sides of the loop
+	int[] cellStack;
+	boolean[] inReach, outReach;
+	byte[] unpacked; //for setPackedClues(), kept from one call to the next
+	//null unless the puzzle is being edited (see setEdge()); then every change is logged, for undo().
+	//copies start out without one
+	Trail trail;
+	ArrayList<Edit> edits;
+	byte[] userEdges; //what setEdge() was told, by edge (row*(cols+1)+col); UNKNOWN where it wasn't told anything
 	
+	//"rows cols" + clue grid, or a board as print() draws it; see PuzzleParser
 	public SlitherSolverOO(String inSource)
 	{
-		this(new StringReader(inSource));
+		this(PuzzleParser.parse(inSource.getBytes(StandardCharsets.UTF_8)));
 	}
 	public SlitherSolverOO(InputStream inSource)
 	{
-		this(new InputStreamReader(inSource));
+		this(PuzzleParser.parse(readAll(inSource)));
 	}
 	public SlitherSolverOO(Readable inSource)
 	{
-		Scanner in = new Scanner(inSource);
-		rows = in.nextInt();
-		cols = in.nextInt();
+		this(readAll(inSource));
+	}
+	SlitherSolverOO(PuzzleParser p)
+	{
+		rows = p.rows;
+		cols = p.cols;
 		init();
-		parse(in);
+		setClues(p.clues);
 	}
 	
 	public SlitherSolverOO(int r, int c)
@@ -104,18 +139,60 @@ public class SlitherSolverOO
 		cols = c;
 		init();
 	}
+	
+	//a deep copy, so that a guess can be tried out without touching the original.
+	//the copy doesn't inherit the listener
+	public SlitherSolverOO(SlitherSolverOO other)
+	{
+		rows = other.rows;
+		cols = other.cols;
+		priority = other.priority;
+		init();
+		loops = new LoopSets(other.loops);
+		contradiction = other.contradiction;
+		loopClosed = other.loopClosed;
+		onEdges = other.onEdges;
+		stats = other.stats;
+		patterns = other.patterns;
+		windows = other.windows;
+		for (int r = 0; r < rows+1; r++)
+		{
+			for (int c = 0; c < cols+1; c++)
+			{
+				vertices[r][c].state = other.vertices[r][c].state;
+				vertices[r][c].color = other.vertices[r][c].color;
+			}
+		}
+		for (int r = 0; r < rows*2+1; r++)
+		{
+			for (int c = 0; c < cols+1; c++)
+			{
+				edges[r][c].state = other.edges[r][c].state;
+			}
+		}
+		for (int r = 0; r < rows; r++)
+		{
+			for (int c = 0; c < cols; c++)
+			{
+				cells[r][c].clue = other.cells[r][c].clue;
+				cells[r][c].done = other.cells[r][c].done;
+			}
+		}
+		queue = other.queue.copy();
+		dirty = other.dirty.copy();
+	}
 
 	//assuming rows and cols have already been set, finish constructing
 	public void init()
 	{
-		interesting = new HashSet<Cell>();
-		queue = new LinkedList<Cell>();
+		queue = priority ? new PriorityCellQueue(rows*cols) : new CellQueue(rows*cols);
+		dirty = new CellQueue((rows+1)*(cols+1));
 		
 		cells = new Cell[rows][cols];
 		edges = new Edge[rows*2+1][cols+1];
 		vertices = new Vertex[rows+1][cols+1];
 
-		nextColor = 2;
+		loops = new LoopSets(rows+cols+2);
 		
 		for (int r = 0; r < rows+1; r++)
 		{
@@ -140,142 +217,254 @@ public class SlitherSolverOO
 		}
 	}
 	
-	public void parse(Readable inSource)
+	//back to a blank board, r by c, for setClues() to fill in. when the size is the same as before, every object and
+	//array is kept and just cleared; otherwise it's init() all over again. the listener, stats and the kind of queue stay;
+	//the edits, if any, go
+	public void reset(int r, int c)
 	{
-		Scanner in = new Scanner(inSource);
-		in.nextInt(); //go past the row and column integers
-		in.nextInt();
-		parse(in);
-		in.close();
+		if (r != rows || c != cols || cells == null)
+		{
+			rows = r;
+			cols = c;
+			init();
+			renderer = null;
+		}
+		else
+		{
+			for (Vertex[] row : vertices)
+				for (Vertex v : row)
+					v.reset();
+			for (Edge[] row : edges)
+				for (Edge e : row)
+					e.state = UNKNOWN;
+			for (Cell[] row : cells)
+			{
+				for (Cell cell : row)
+				{
+					cell.clue = NO_INFO;
+					cell.done = false;
+				}
+			}
+			queue.clear();
+			dirty.clear();
+			loops.clear();
+		}
+		contradiction = false;
+		loopClosed = false;
+		decided = 0;
+		onEdges = 0;
+		trail = null;
+		loops.trail = null;
+		edits = null;
+		userEdges = null;
+	}
+	//a new puzzle on this board: reset(), then setClues()
+	public void load(int r, int c, byte[] clues)
+	{
+		reset(r,c);
+		setClues(clues);
 	}
 	
-	public void parse(Scanner in)
+	//clues[row*cols+col], 0-4 or NO_INFO; the clued cells are queued up for solve()
+	public void setClues(byte[] clues)
 	{
-		in.useDelimiter("");
-		
-		char look;
-		int position = 0;
-		while (position < rows*cols)
-		{
-			if (!in.hasNext())
-				System.err.println("not enough input (crashing)");
-			look = in.next().charAt(0);
-			if (Character.isWhitespace(look)) continue;
-			if (look == '.')
-				cells[position/cols][position%cols].clue = NO_INFO;
-			else
-			{
-				cells[position/cols][position%cols].clue = (byte)(look-'0');
-				interesting.add(cells[position/cols][position%cols]);
-			}
-			position++;
+		for (int position = 0; position < rows*cols; position++)
+		{
+			cells[position/cols][position%cols].clue = clues[position];
+			if (clues[position] != NO_INFO)
+				queue.add(position);
 		}
-		
 		enqueueNext();
 	}
-	public static String stripHTML(InputStream inSource)
+	//a board with its clues already known
+	public static SlitherSolverOO fromClues(int rows, int cols, byte[] clues)
 	{
+		SlitherSolverOO s = new SlitherSolverOO(rows,cols);
+		s.setClues(clues);
+		return s;
+	}
+	//a board whose clues are packed 3 bits each from byte offset of data on, the way PuzzleArchive keeps them
+	public static SlitherSolverOO fromPacked(int rows, int cols, ByteBuffer data, int offset)
+	{
+		SlitherSolverOO s = new SlitherSolverOO(rows,cols);
+		s.setPackedClues(data,offset);
+		return s;
+	}
+	//setClues() from clues packed 3 bits each, from byte offset of data on
+	public void setPackedClues(ByteBuffer data, int offset)
+	{
+		if (unpacked == null || unpacked.length < rows*cols)
+			unpacked = new byte[rows*cols];
+		PuzzleArchive.unpack(data,offset,rows*cols,unpacked);
+		setClues(unpacked);
+	}
+	static byte[] readAll(InputStream in)
+	{
+		try {
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	static String readAll(Readable in)
+	{
+		StringBuilder out = new StringBuilder();
+		CharBuffer buffer = CharBuffer.allocate(8192);
 		try {
-			StringBuilder out = new StringBuilder();
-			int bytes = inSource.available();
-			while (bytes > 0)
+			while (in.read(buffer) >= 0)
 			{
-				for (;bytes > 0; bytes--) out.append((char)(inSource.read()));
-				bytes = inSource.available();
+				buffer.flip();
+				out.append(buffer);
+				buffer.clear();
 			}
-			return stripHTML(out.toString());
 		} catch (IOException e) {
-			return null;
+			throw new UncheckedIOException(e);
+		}
+		return out.toString();
+	}
+	//the puzzle on a saved page as "rows cols" + clue grid text; see HtmlBoardReader.
+	//a page with no board on it (or one that can't be read) is an UncheckedIOException saying so
+	public static String stripHTML(InputStream inSource)
+	{
+		try {
+			return HtmlBoardReader.read(Channels.newChannel(inSource)).text();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
 	}
 	public static String stripHTML(String inSource)
 	{
-		StringBuilder out = new StringBuilder();
-		Scanner in = new Scanner(inSource);
-		
-		HashSet<Integer> xPositions = new HashSet<Integer>();
-		HashSet<Integer> yPositions = new HashSet<Integer>();
-		int cells = 0;
-		int rows = 0;
-		int cols = 0;
-		
-		if (in.findWithinHorizon("class=\"board-back\"",0) == null)
+		try {
+			return HtmlBoardReader.read(inSource).text();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	public static void main(String[] args)
+	{
+		boolean html = false;
+		boolean search = false;
+		boolean parallel = false;
+		boolean verbose = false;
+		boolean priority = false;
+		boolean sweep = false;
+		boolean patterns = false;
+		boolean windows = false;
+		Solution.Format format = null;
+		boolean stats = false;
+		for (String arg : args)
 		{
-			in.close();
-			return "stripHTML: malformed input";
+			if (arg.equals("-stats"))
+				stats = true;
+			else if (arg.equals("-raw"))
+				format = Solution.Format.RAW;
+			else if (arg.equals("-base64"))
+				format = Solution.Format.BASE64;
+			else if (arg.equals("-rle"))
+				format = Solution.Format.RLE;
+			else if (arg.equals("-v"))
+				verbose = true;
+			else if (arg.equals("-priority"))
+				priority = true;
+			else if (arg.equals("-search"))
+				search = true;
+			else if (arg.equals("-parallel"))
+				parallel = true;
+			else if (arg.equals("-sweep"))
+				sweep = true;
+			else if (arg.equals("-patterns"))
+				patterns = true;
+			else if (arg.equals("-windows"))
+				windows = true;
+			else
+				html = true;
 		}
-
-		in.useDelimiter("<");
-		in.next();
-		while (in.hasNext())
+		
+		SlitherSolverOO s;
+		if (html)
 		{
-			String token = in.next();
-			if (token.contains("class=\"loop-line")) break;
-			if (token.contains("class=\"loop-task-cell\""))
-			{
-				cells++;
+			try {
+				s = HtmlBoardReader.read(Channels.newChannel(System.in)).board();
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				return;
 			}
-			out.append('<');
-			out.append(token);
 		}
-		inSource = out.toString();
-		out.setLength(0);
-		in.close();
-		in = new Scanner(inSource);
-	
-		//System.out.print("ok");
-		
-		while(in.hasNext())
+		else
 		{
-			String matchTop = in.findWithinHorizon("top:\\s*\\d+px",0);
-			String matchLeft = in.findWithinHorizon("left:\\s*\\d+px",0);
-			String matchHint = in.findWithinHorizon(">\\d?</div>",0);
-			if (matchTop == null || matchLeft == null || matchHint == null) break;
-			int ypos = Integer.parseInt(matchTop.replaceAll("\\D+",""));
-			int xpos = Integer.parseInt(matchLeft.replaceAll("\\D+",""));
-			if (yPositions.add(ypos))
-			{
-				rows++;
-				out.append('\n');
+			try {
+				s = new SlitherSolverOO(System.in);
+			} catch (PuzzleFormatException e) {
+				System.err.println(e.getMessage());
+				return;
 			}
-			if (xPositions.add(xpos))
-			{
-				cols++;
+		}
+		if (verbose)
+			s.listener = new DebugSolveListener(s);
+		if (priority)
+			s.usePriorityQueue();
+		if (stats)
+			s.stats = new RuleStats();
+		if (patterns)
+			s.patterns = PatternLibrary.bundled();
+		if (windows)
+		{
+			try {
+				s.windows = WindowTable.load();
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				return;
 			}
-			
-			String digit = matchHint.replaceAll("\\D+","");
-			if (digit.length() == 0)
-				out.append('.');
-			else
-				out.append(digit.charAt(0));
-		}
-		in.close();
-		// int cells = out.length();
-		// int rows = 0;
-		// for (int i = 0; i < inSource.length()-3; i++)
-			// if (inSource.regionMatches(i,"<tr",0,3))
-				// rows++;
-		// rows = rows/2;
-		// int cols = cells/rows;
-		String result = String.format("%d %d%s",rows,cols,out.toString());
-		System.err.println(result);
-		
-		return result;
-	}
-	
-	public static void main(String[] args)
-	{
-		SlitherSolverOO s;
-		if (args.length > 0)
-			s = new SlitherSolverOO(stripHTML(System.in));
-		else
-			s = new SlitherSolverOO(System.in);
+		}
 		
 		//s.print(false);
+		if (sweep)
+		{
+			EdgePlanes planes = EdgePlanes.of(s);
+			planes.sweep();
+			planes.applyTo(s);
+			System.err.println(planes);
+		}
 		
-		s.solve();
+		if (parallel)
+		{
+			ParallelSlitherSearch searcher = new ParallelSlitherSearch();
+			SlitherSolverOO solution = searcher.solve(s);
+			System.err.println(searcher.report());
+			if (solution == null)
+				System.err.println("no solution found");
+			else
+				s = solution;
+		}
+		else if (search)
+		{
+			SlitherSearch searcher = new SlitherSearch();
+			SlitherSolverOO solution = searcher.solve(s);
+			System.err.println(searcher.report());
+			if (solution == null)
+				System.err.println("no solution found");
+			else
+				s = solution;
+		}
+		else
+			s.solve();
 		
-		s.print(false);
+		if (stats)
+			System.err.println(s.stats.toJson());
+		if (format == null)
+			s.print(false);
+		else
+		{
+			try {
+				Solution.of(s).write(format,System.out);
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+			}
+			if (format == Solution.Format.BASE64)
+				System.out.println();
+			System.out.flush();
+		}
 		//s.dumpVertices();
 		
 	}
@@ -283,37 +472,49 @@ public class SlitherSolverOO
 	{
 		int iters = 0;
 		//int maxWithoutProgress = rows*cols;
-		while (!queue.isEmpty())
+		while (!queue.isEmpty() && !contradiction)
 		{
-			Cell c = queue.poll();
+			int index = queue.poll();
+			Cell c = cells[index/cols][index%cols];
 			if (c.done) continue;
- 			if (iters % 1000 == 0)
-			{
-				print();
-				System.out.printf("Considering %d,%d\n",c.row,c.col);
-				System.out.printf("Queue size: %d\n",queue.size());
-				// for (Cell ce : queue)
-					// System.out.printf("%d,%d; ",ce.row,ce.col);
-				System.out.println();
-				System.out.println("===================");				
-			}   
+			listener.cellProcessed(c.row,c.col,iters);
 			iters++;
 			
 			if (c.clue == 0x00)
 			{
+				long start = now();
+				int before = decided;
 				for (Edge e : c.es)
-					e.state = OFF;
-				c.done = true;
+				{
+					if (e.state > OFF)
+						contradiction = true;
+					e.set(OFF);
+				}
+				c.setDone(true);
 				//System.err.printf("Done: %d,%d (%d)\n",c.row,c.col,c.clue);
-				updateVertices(c.row,c.col);
+				updateDirtyVertices();
+				if (stats != null)
+					record(RuleStats.Rule.ZERO,before,start);
 			}
 			else
 			{	
 				//if(c.row == 18 && c.col == 22)
 				//	dumpVertices();
-				updateVertices(c.row,c.col);
+				updateDirtyVertices();
+				long start = now();
+				int before = decided;
 				while (stayOpen(c))
-					updateVertices(c.row,c.col);
+				{
+					updateDirtyVertices();
+					if (stats != null)
+					{
+						record(RuleStats.Rule.STAY_OPEN,before,start);
+						start = now();
+						before = decided;
+					}
+				}
+				start = now();
+				before = decided;
 				if (c.clue == 0x01)
 				{
 					resolveOneCell(c);
@@ -338,10 +539,12 @@ public class SlitherSolverOO
 					if (knownEdges == 4)
 					{
 						//updateVertices(c.row,c.col); //get those pesky corners
-						c.done = true;
+						c.setDone(true);
 						//System.err.printf("Done: %d,%d ( )\n",c.row,c.col);
 					}
 				}
+				if (stats != null && c.clue >= 1 && c.clue <= 3)
+					record(RuleStats.CELL[c.clue],before,start);
 				//if(c.row == 18 && c.col == 22)
 				//	dumpVertices();
 			}
@@ -354,20 +557,827 @@ public class SlitherSolverOO
 			}  */
 			/* if(!c.done)
 				cellBecomesInteresting(c.row,c.col); */
+			if (patterns != null && !contradiction)
+			{
+				long start = now();
+				int before = decided;
+				if (patterns.apply(this,c))
+					updateDirtyVertices();
+				if (stats != null)
+					record(RuleStats.Rule.PATTERN,before,start);
+			}
+			if (windows != null && !contradiction)
+			{
+				long start = now();
+				int before = decided;
+				if (windows.apply(this,c))
+					updateDirtyVertices();
+				if (stats != null)
+					record(RuleStats.Rule.WINDOW,before,start);
+			}
 			enqueueNext();
 				
 		}	
-		System.out.println(iters);
+		listener.finished(iters);
+	}
+	
+	//for stats: a rule that started at start (see now()), when before edges had been decided
+	void record(RuleStats.Rule r, int before, long start)
+	{
+		stats.record(r,decided-before,System.nanoTime()-start);
+	}
+	//the same, without the time
+	void counted(RuleStats.Rule r, int before)
+	{
+		if (stats != null)
+			stats.record(r,decided-before,0);
+	}
+	long now()
+	{
+		return stats == null ? 0 : System.nanoTime();
+	}
+	
+	//try out an edge; the consequences are worked out by the next solve()
+	public void assume(Edge e, boolean on)
+	{
+		if (on)
+			addEdge(e);
+		else
+			removeEdge(e);
+		enqueueNext();
+	}
+	
+	//editing a puzzle a step at a time, for an editor or a hint service: setEdge() and setClue() propagate from where
+	//the change was made, and undo() takes the last one back by rolling the trail back to where it was.
+	//a change that only adds something (an edge nobody had set, a clue in an empty cell) stays that cheap.
+	//one that takes something away rolls back to the last edit's mark from before whatever it takes away was said,
+	//and goes forward again from there with what's still wanted; what it rolled back is kept for undo().
+	//taking away a clue the puzzle came with rolls back to the clues alone.
+	//the first edit solves whatever was left to solve beforehand.
+	static final int ON = 2; //for setEdge(): on, whatever color that makes it
+	
+	static class Edit
+	{
+		boolean clue;
+		int row, col;
+		int before, after; //the clue, or what setEdge() had said about the edge
+		int mark; //the trail before the edit, or where an edit that took something away rolled back to
+		int[] redo; //what that rollback undid, for undo() to put back (see rollback(int, boolean)); null otherwise
+		int shadows; //the first of the edits before this one whose marks it rolled back past
+		int shadowed; //how many edits after this one have rolled back past its mark
+		
+		public Edit(boolean c, int r, int co, int b, int a)
+		{
+			clue = c;
+			row = r;
+			col = co;
+			before = b;
+			after = a;
+		}
+	}
+	
+	//edges[row][col] to ON, OFF or back to UNKNOWN. false if the board can't be completed any more
+	//(as far as propagation can tell; consistent() looks at the whole board).
+	//an edge that isn't on the board, or any other state, is an IllegalArgumentException, before anything changes
+	public boolean setEdge(int row, int col, int state)
+	{
+		if (row < 0 || row > rows*2 || col < 0 || col >= (row%2 == 0 ? cols : cols+1))
+			throw new IllegalArgumentException("no edge " + row + "," + col + " on a " + rows + "x" + cols + " board");
+		if (state != UNKNOWN && state != OFF && state != ON)
+			throw new IllegalArgumentException("an edge can be set to UNKNOWN, OFF or ON, not " + state);
+		startEditing();
+		int at = row*(cols+1)+col;
+		int before = userEdges[at];
+		if (state == before)
+			return !contradiction;
+		Edit edit = new Edit(false,row,col,before,state);
+		userEdges[at] = (byte)state;
+		if (before != UNKNOWN)
+			rewind(edit);
+		else
+		{
+			add(edit);
+			decide(edges[row][col],state);
+			solve();
+		}
+		return !contradiction;
+	}
+	//cells[row][col]'s clue to 0-4 or NO_INFO; false, and IllegalArgumentException, as for setEdge().
+	//a clue the cell's edges already rule out (fewer than are on, more than aren't off) is false straight away
+	public boolean setClue(int row, int col, int clue)
+	{
+		if (row < 0 || row >= rows || col < 0 || col >= cols)
+			throw new IllegalArgumentException("no cell " + row + "," + col + " on a " + rows + "x" + cols + " board");
+		if ((clue < 0 || clue > 4) && clue != NO_INFO)
+			throw new IllegalArgumentException("a clue is 0-4 or NO_INFO, not " + clue);
+		startEditing();
+		Cell cell = cells[row][col];
+		if (clue == cell.clue)
+			return !contradiction;
+		Edit edit = new Edit(true,row,col,cell.clue,clue);
+		if (cell.clue != NO_INFO)
+			rewind(edit);
+		else
+		{
+			add(edit);
+			putClue(cell,clue);
+			enqueueNext();
+			solve();
+		}
+		if (clue != NO_INFO)
+		{
+			int on = 0;
+			int off = 0;
+			for (Edge e : cell.es)
+			{
+				if (e.state > OFF) on++;
+				else if (e.state == OFF) off++;
+			}
+			if (on > clue || off > 4-clue)
+				contradiction = true;
+		}
+		return !contradiction;
+	}
+	//takes back the last setEdge() or setClue(); false if there weren't any
+	public boolean undo()
+	{
+		if (edits == null || edits.isEmpty())
+			return false;
+		Edit edit = edits.remove(edits.size()-1);
+		for (int i = edit.shadows; i < edits.size(); i++)
+			edits.get(i).shadowed--;
+		rollback(edit.mark);
+		if (edit.redo != null)
+			redo(edit.redo);
+		if (!edit.clue)
+			userEdges[edit.row*(cols+1)+edit.col] = (byte)edit.before;
+		return true;
+	}
+	//how many edits undo() can take back
+	public int edits()
+	{
+		return edits == null ? 0 : edits.size();
+	}
+	void startEditing()
+	{
+		if (edits != null)
+			return;
+		solve();
+		track();
+		edits = new ArrayList<Edit>();
+		userEdges = new byte[(rows*2+1)*(cols+1)];
+	}
+	//an edit that only adds something, from a checkpoint
+	void add(Edit edit)
+	{
+		edit.mark = checkpoint();
+		edit.shadows = edits.size();
+		edits.add(edit);
+	}
+	//e the way the user says it is, unless it's already been decided; the other way round is a contradiction
+	void decide(Edge e, int state)
+	{
+		if (e.state == UNKNOWN)
+			assume(e,state > OFF);
+		else if ((e.state > OFF) != (state > OFF))
+			contradiction = true;
+	}
+	//a clue the board didn't have, logged, with the cell queued up
+	void putClue(Cell cell, int clue)
+	{
+		trail.push(Trail.CLUE,cell.row*cols+cell.col,cell.clue);
+		cell.clue = (byte)clue;
+		cell.setDone(false);
+		queue.add(cell.row*cols+cell.col);
+	}
+	//an edit that takes something away. going back through the edits, the first one whose mark it can roll back to
+	//is one from before everything that isn't wanted any more was said; from there the edits since are put back
+	//the way they are now, minus what this one takes away. with no such edit, from the clues
+	void rewind(Edit edit)
+	{
+		int unwanted = 1; //what the edit takes away
+		int to = edits.size()-1;
+		for (; to >= 0; to--)
+		{
+			Edit e = edits.get(to);
+			if (unwanted(e,e.after,edit))
+				unwanted--;
+			if (unwanted(e,e.before,edit))
+				unwanted++;
+			if (unwanted == 0 && e.shadowed == 0 && e.redo == null)
+				break;
+		}
+		if (to < 0)
+		{
+			edit.mark = checkpoint();
+			edit.shadows = 0;
+			edits.add(edit);
+			for (int i = 0; i < edits.size()-1; i++)
+				edits.get(i).shadowed++;
+			restart();
+			for (int position = 0; position < rows*cols; position++)
+			{
+				Cell cell = cells[position/cols][position%cols];
+				if (edit.clue && position == edit.row*cols+edit.col)
+				{
+					trail.push(Trail.CLUE,position,cell.clue);
+					cell.clue = (byte)edit.after;
+				}
+				if (cell.clue != NO_INFO)
+					queue.add(position);
+			}
+			for (int at = 0; at < userEdges.length; at++)
+				if (userEdges[at] != UNKNOWN)
+					decide(edges[at/(cols+1)][at%(cols+1)],userEdges[at]);
+		}
+		else
+		{
+			edit.mark = edits.get(to).mark;
+			edit.redo = rollback(edit.mark,true);
+			edit.shadows = to+1;
+			edits.add(edit);
+			for (int i = to+1; i < edits.size()-1; i++)
+				edits.get(i).shadowed++;
+			for (int i = to; i < edits.size(); i++)
+			{
+				Edit e = edits.get(i);
+				if (e.clue)
+				{
+					Cell cell = cells[e.row][e.col];
+					int clue = wanted(e,edit);
+					if (clue != cell.clue)
+						putClue(cell,clue);
+				}
+				else if (userEdges[e.row*(cols+1)+e.col] != UNKNOWN)
+					decide(edges[e.row][e.col],userEdges[e.row*(cols+1)+e.col]);
+			}
+		}
+		enqueueNext();
+		solve();
+	}
+	//what's wanted now where e made its change: the user's edge, or the clue, counting the edit being made
+	int wanted(Edit e, Edit edit)
+	{
+		if (!e.clue)
+			return userEdges[e.row*(cols+1)+e.col];
+		if (edit.clue && e.row == edit.row && e.col == edit.col)
+			return edit.after;
+		return cells[e.row][e.col].clue;
+	}
+	//whether value, said where e made its change, is something that isn't wanted any more
+	boolean unwanted(Edit e, int value, Edit edit)
+	{
+		return value != (e.clue ? NO_INFO : UNKNOWN) && value != wanted(e,edit);
+	}
+	//back to nothing decided, logged, for rewind(); the clues stay as they are. segments carry on from the next
+	//color, since starting the colors over would write over segments that undo() brings back
+	void restart()
+	{
+		contradiction = false;
+		loopClosed = false;
+		decided = 0;
+		for (Vertex[] row : vertices)
+		{
+			for (Vertex v : row)
+			{
+				byte state = v.state;
+				int color = v.color;
+				v.reset();
+				byte blank = v.state;
+				v.state = state;
+				v.color = color;
+				v.setState(blank);
+				if (color != UNKNOWN)
+					v.setColor(UNKNOWN);
+			}
+		}
+		for (int r = 0; r < rows*2+1; r++)
+		{
+			for (int c = 0; c < (r%2 == 0 ? cols : cols+1); c++)
+			{
+				Edge e = edges[r][c];
+				if (e.state == UNKNOWN)
+					continue;
+				trail.push(Trail.EDGE,r*(cols+1)+c,e.state);
+				if (e.state > OFF)
+					onEdges--;
+				e.state = UNKNOWN;
+			}
+		}
+		for (Cell[] row : cells)
+			for (Cell cell : row)
+				cell.setDone(false);
+	}
+	
+	//log every change from now on, so that whatever is tried after a checkpoint() can be rolled back.
+	//the log grows with what changes, and shrinks again with each rollback()
+	public void track()
+	{
+		if (trail != null)
+			return;
+		trail = new Trail();
+		loops.trail = trail;
+	}
+	//stop logging; the checkpoints taken so far are no good any more. not while there are edits to undo
+	public void untrack()
+	{
+		if (edits != null)
+			return;
+		trail = null;
+		loops.trail = null;
+	}
+	//where the board stands now, for rollback(); only after track()
+	public int checkpoint()
+	{
+		int mark = trail.mark();
+		trail.push(Trail.FLAGS,decided,(contradiction ? 1 : 0) | (loopClosed ? 2 : 0));
+		return mark;
+	}
+	//back to the way things were at checkpoint() mark, undoing everything logged since, newest first.
+	//the queues are emptied, so take checkpoints between solve()s
+	public void rollback(int mark)
+	{
+		rollback(mark,false);
+	}
+	//rollback(), and with keep, what was undone for redo(): three ints an entry, oldest first, the entry's two and
+	//the value it was undoing; then the ends of each segment it took back the creation of, which aren't logged,
+	//newest first
+	int[] rollback(int mark, boolean keep)
+	{
+		int[] entries = trail.entries;
+		int[] kept = null;
+		int ends = (trail.size-mark)/2*3;
+		if (keep)
+		{
+			int created = 0;
+			for (int at = mark; at < trail.size; at += 2)
+				if (entries[at] >>> 28 == Trail.NEXT)
+					created++;
+			kept = new int[ends+created*2];
+		}
+		for (int at = trail.size-2; at >= mark; at -= 2)
+		{
+			int kind = entries[at] >>> 28;
+			int index = entries[at] & Trail.INDEX;
+			int old = entries[at+1];
+			if (keep)
+			{
+				int k = (at-mark)/2*3;
+				kept[k] = entries[at];
+				kept[k+1] = old;
+				kept[k+2] = value(kind,index);
+				if (kind == Trail.NEXT)
+				{
+					kept[ends++] = loops.endA[old];
+					kept[ends++] = loops.endB[old];
+				}
+			}
+			put(kind,index,kind == Trail.FLAGS ? old | index << 2 : old);
+		}
+		trail.size = mark;
+		queue.clear();
+		dirty.clear();
+		return kept;
+	}
+	//puts back what rollback() kept, logging it again
+	void redo(int[] kept)
+	{
+		int ends = kept.length; //the oldest segment's ends are last
+		for (int k = 0; k < ends; k += 3)
+		{
+			int kind = kept[k] >>> 28;
+			int index = kept[k] & Trail.INDEX;
+			if (kind == Trail.NEXT)
+			{
+				ends -= 2;
+				loops.create(kept[ends],kept[ends+1]);
+			}
+			else
+			{
+				trail.push(kind,index,kept[k+1]);
+				put(kind,index,kept[k+2]);
+			}
+		}
+	}
+	//what a trail entry of this kind and index logs, as it is now; FLAGS has the edges decided above the two flags
+	int value(int kind, int index)
+	{
+		switch (kind)
+		{
+			case Trail.EDGE:
+				return edges[index/(cols+1)][index%(cols+1)].state;
+			case Trail.VERTEX:
+				return vertices[index/(cols+1)][index%(cols+1)].state;
+			case Trail.COLOR:
+				return vertices[index/(cols+1)][index%(cols+1)].color;
+			case Trail.DONE:
+				return cells[index/cols][index%cols].done ? 1 : 0;
+			case Trail.CLUE:
+				return cells[index/cols][index%cols].clue;
+			case Trail.FLAGS:
+				return (contradiction ? 1 : 0) | (loopClosed ? 2 : 0) | decided << 2;
+			default:
+				return loops.value(kind,index);
+		}
+	}
+	//the other way round, without logging
+	void put(int kind, int index, int value)
+	{
+		switch (kind)
+		{
+			case Trail.EDGE:
+				Edge e = edges[index/(cols+1)][index%(cols+1)];
+				onEdges += (value > OFF ? 1 : 0) - (e.state > OFF ? 1 : 0);
+				e.state = value;
+				break;
+			case Trail.VERTEX:
+				vertices[index/(cols+1)][index%(cols+1)].state = (byte)value;
+				break;
+			case Trail.COLOR:
+				vertices[index/(cols+1)][index%(cols+1)].color = value;
+				break;
+			case Trail.DONE:
+				cells[index/cols][index%cols].done = value != 0;
+				break;
+			case Trail.CLUE:
+				cells[index/cols][index%cols].clue = (byte)value;
+				break;
+			case Trail.FLAGS:
+				contradiction = (value & 1) != 0;
+				loopClosed = (value & 2) != 0;
+				decided = value >>> 2;
+				break;
+			default:
+				loops.undo(kind,index,value);
+		}
+	}
+	
+	//call after solve(): returns false if the board can no longer be completed.
+	//if the loop has already been closed, everything else gets turned off
+	public boolean consistent()
+	{
+		if (contradiction) return false;
+		for (int r = 0; r <= rows; r++)
+		{
+			for (int c = 0; c <= cols; c++)
+			{
+				Vertex v = vertices[r][c];
+				if (v.state == 0) return false;
+				int on = 0;
+				int unknown = 0;
+				for (byte d = EDGE_UP; d <= EDGE_DOWN; d++)
+				{
+					Edge e = v.get(d);
+					if (e == null) continue;
+					if (e.state > OFF) on++;
+					else if (e.state == UNKNOWN) unknown++;
+				}
+				if (on > 2 || (on == 1 && unknown == 0)) return false;
+			}
+		}
+		for (int r = 0; r < rows; r++)
+		{
+			for (int c = 0; c < cols; c++)
+			{
+				Cell cell = cells[r][c];
+				if (cell.clue == NO_INFO) continue;
+				int on = 0;
+				int off = 0;
+				for (Edge e : cell.es)
+				{
+					if (e.state > OFF) on++;
+					else if (e.state == OFF) off++;
+				}
+				if (on > cell.clue || off > 4-cell.clue) return false;
+				if (loopClosed && on != cell.clue) return false;
+			}
+		}
+		if (loopClosed)
+		{
+			//a closed loop has to be the only loop
+			int color = 0;
+			for (Edge[] row : edges)
+			{
+				for (Edge e : row)
+				{
+					if (e.state <= OFF) continue;
+					if (color == 0) color = loops.find(e.state);
+					else if (color != loops.find(e.state)) return false;
+				}
+			}
+			for (int r = 0; r < rows*2+1; r++)
+				for (int c = 0; c < (r%2 == 0 ? cols : cols+1); c++)
+					if (edges[r][c].state == UNKNOWN)
+						edges[r][c].set(OFF);
+		}
+		else if (!connectable() || !sides())
+			return false;
+		return true;
+	}
+	//can everything that's on, and every clue that needs the loop, still be joined up through edges that aren't off?
+	boolean connectable()
+	{
+		if (reached == null || reached.length != (rows+1)*(cols+1))
+		{
+			reached = new boolean[(rows+1)*(cols+1)];
+			stack = new int[(rows+1)*(cols+1)];
+		}
+		else
+			Arrays.fill(reached,false);
+		int top = 0;
+		for (int r = 0; r <= rows && top == 0; r++)
+		{
+			for (int c = 0; c <= cols && top == 0; c++)
+			{
+				for (byte d = EDGE_UP; d <= EDGE_DOWN; d++)
+				{
+					if (vertices[r][c].getEdgeState(d) > OFF)
+					{
+						reached[r*(cols+1)+c] = true;
+						stack[top++] = r*(cols+1)+c;
+						break;
+					}
+				}
+			}
+		}
+		if (top == 0) return true; //nothing on yet
+		while (top > 0)
+		{
+			int index = stack[--top];
+			Vertex v = vertices[index/(cols+1)][index%(cols+1)];
+			for (byte d = EDGE_UP; d <= EDGE_DOWN; d++)
+			{
+				if (v.getEdgeState(d) == OFF) continue;
+				Vertex next = v.getVertex(d);
+				int nextIndex = next.row*(cols+1)+next.col;
+				if (!reached[nextIndex])
+				{
+					reached[nextIndex] = true;
+					stack[top++] = nextIndex;
+				}
+			}
+		}
+		for (int r = 0; r <= rows; r++)
+			for (int c = 0; c <= cols; c++)
+				if (!reached[r*(cols+1)+c])
+					for (byte d = EDGE_UP; d <= EDGE_DOWN; d++)
+						if (vertices[r][c].getEdgeState(d) > OFF)
+							return false;
+		for (int r = 0; r < rows; r++)
+		{
+			for (int c = 0; c < cols; c++)
+			{
+				if (cells[r][c].clue == 0 || cells[r][c].clue == NO_INFO) continue;
+				if (!reached[r*(cols+1)+c] && !reached[r*(cols+1)+c+1] &&
+					!reached[(r+1)*(cols+1)+c] && !reached[(r+1)*(cols+1)+c+1])
+					return false;
+			}
+		}
+		return true;
+	}
+	//the cells on either side of an edge that's off are on the same side of the loop, inside or outside, and on
+	//opposite sides of one that's on. the inside is all in one piece, and the outside reaches the border, so a cell
+	//can only be inside if it can join up with the cells known to be inside without crossing an edge that's on or a
+	//cell known to be outside, and only be outside if it can get to the border the same way. false if a cell can't
+	//be either. leaves side[] and the two reach arrays as they are, for sideEdges()
+	boolean sides()
+	{
+		int outside = rows*cols;
+		group();
+		int out = sideOf(outside);
+		int seed = -1;
+		for (int i = 0; i < outside && seed < 0; i++)
+			if (whichSide(i,out) == 1)
+				seed = i;
+		spread(seed,1,out,inReach);
+		spread(outside,0,out,outReach);
+		for (int i = 0; i < outside; i++)
+		{
+			int which = whichSide(i,out);
+			if (!(which != 0 && inReach[i]) && !(which != 1 && outReach[i]))
+				return false;
+		}
+		return true;
+	}
+	//the sets in side[], from the edges decided so far
+	void group()
+	{
+		int outside = rows*cols;
+		if (side == null || side.length != outside+1)
+		{
+			side = new int[outside+1];
+			cellStack = new int[outside+1];
+			inReach = new boolean[outside+1];
+			outReach = new boolean[outside+1];
+		}
+		for (int i = 0; i <= outside; i++)
+			side[i] = i << 1;
+		for (int r = 0; r < rows*2+1; r++)
+		{
+			for (int c = 0; c < (r%2 == 0 ? cols : cols+1); c++)
+			{
+				int state = edges[r][c].state;
+				if (state != UNKNOWN)
+					unite(cellBefore(r,c),cellAfter(r,c),state > OFF ? 1 : 0);
+			}
+		}
+	}
+	//what sides() can tell: a cell that can only be on one side is on that side, and then the edges between two
+	//cells whose sides are known relative to each other are off if they're on the same side and on if not.
+	//returns how many edges that decided; solve() takes it from there
+	public int sideEdges()
+	{
+		int outside = rows*cols;
+		if (!sides())
+		{
+			contradiction = true;
+			return 0;
+		}
+		int out = sideOf(outside);
+		for (int i = 0; i < outside; i++)
+		{
+			if (whichSide(i,out) != 2)
+				continue;
+			if (!outReach[i])
+				unite(i,outside,1);
+			else if (!inReach[i])
+				unite(i,outside,0);
+			else
+				continue;
+			out = sideOf(outside);
+		}
+		int count = 0;
+		for (int r = 0; r < rows*2+1; r++)
+		{
+			for (int c = 0; c < (r%2 == 0 ? cols : cols+1); c++)
+			{
+				Edge e = edges[r][c];
+				if (e.state != UNKNOWN)
+					continue;
+				int a = sideOf(cellBefore(r,c));
+				int b = sideOf(cellAfter(r,c));
+				if (a >> 1 != b >> 1)
+					continue;
+				assume(e,((a ^ b) & 1) != 0);
+				count++;
+			}
+		}
+		return count;
+	}
+	//marks what can be reached from cell start, through edges that aren't on to cells that aren't known to be on
+	//the other side from which; everything if there's no start
+	void spread(int start, int which, int out, boolean[] seen)
+	{
+		int outside = rows*cols;
+		Arrays.fill(seen,start < 0);
+		if (start < 0)
+			return;
+		seen[start] = true;
+		cellStack[0] = start;
+		int top = 1;
+		while (top > 0)
+		{
+			int i = cellStack[--top];
+			if (i == outside)
+			{
+				for (int c = 0; c < cols; c++)
+				{
+					top = visit(0,c,c,top,which,out,seen);
+					top = visit(rows*2,c,(rows-1)*cols+c,top,which,out,seen);
+				}
+				for (int r = 0; r < rows; r++)
+				{
+					top = visit(r*2+1,0,r*cols,top,which,out,seen);
+					top = visit(r*2+1,cols,r*cols+cols-1,top,which,out,seen);
+				}
+				continue;
+			}
+			int row = i/cols;
+			int col = i%cols;
+			top = visit(row*2,col,row > 0 ? i-cols : outside,top,which,out,seen);
+			top = visit(row*2+2,col,row < rows-1 ? i+cols : outside,top,which,out,seen);
+			top = visit(row*2+1,col,col > 0 ? i-1 : outside,top,which,out,seen);
+			top = visit(row*2+1,col+1,col < cols-1 ? i+1 : outside,top,which,out,seen);
+		}
+	}
+	int visit(int row, int col, int to, int top, int which, int out, boolean[] seen)
+	{
+		if (edges[row][col].state > OFF || seen[to] || whichSide(to,out) == 1-which)
+			return top;
+		seen[to] = true;
+		cellStack[top++] = to;
+		return top;
+	}
+	//0 outside, 1 inside, 2 can't tell yet
+	int whichSide(int cell, int out)
+	{
+		int root = sideOf(cell);
+		if (root >> 1 != out >> 1)
+			return 2;
+		return (root ^ out) & 1;
+	}
+	//the cell above or left of edges[row][col], and the one below or right; rows*cols for the outside
+	int cellBefore(int row, int col)
+	{
+		if (row%2 == 0)
+			return row == 0 ? rows*cols : (row/2-1)*cols+col;
+		return col == 0 ? rows*cols : (row/2)*cols+col-1;
+	}
+	int cellAfter(int row, int col)
+	{
+		if (row%2 == 0)
+			return row == rows*2 ? rows*cols : (row/2)*cols+col;
+		return col == cols ? rows*cols : (row/2)*cols+col;
+	}
+	//side[] holds each set's parent times two plus whether it's on the other side from its parent.
+	//sideOf() returns the root the same way, with whether the cell is on the other side from it
+	int sideOf(int cell)
+	{
+		int flip = 0;
+		int at = cell;
+		while (side[at] >> 1 != at)
+		{
+			flip ^= side[at] & 1;
+			at = side[at] >> 1;
+		}
+		int root = at;
+		//point everything on the way straight at the root
+		int f = flip;
+		at = cell;
+		while (at != root)
+		{
+			int next = side[at] >> 1;
+			int bit = side[at] & 1;
+			side[at] = root << 1 | f;
+			f ^= bit;
+			at = next;
+		}
+		return root << 1 | flip;
+	}
+	void unite(int a, int b, int opposite)
+	{
+		int ra = sideOf(a);
+		int rb = sideOf(b);
+		if (ra >> 1 == rb >> 1)
+			return;
+		side[rb >> 1] = (ra >> 1) << 1 | ((ra ^ rb ^ opposite) & 1);
+	}
+	//a single loop, all edges decided, all clues met
+	public boolean solved()
+	{
+		int color = 0;
+		for (int r = 0; r < rows*2+1; r++)
+		{
+			for (int c = 0; c < (r%2 == 0 ? cols : cols+1); c++)
+			{
+				int state = edges[r][c].state;
+				if (state == UNKNOWN) return false;
+				if (state == OFF) continue;
+				if (color == 0) color = loops.find(state);
+				else if (color != loops.find(state)) return false;
+			}
+		}
+		if (color == 0) return false;
+		for (Vertex[] row : vertices)
+		{
+			for (Vertex v : row)
+			{
+				int on = 0;
+				for (byte d = EDGE_UP; d <= EDGE_DOWN; d++)
+					if (v.getEdgeState(d) > OFF) on++;
+				if (on != 0 && on != 2) return false;
+			}
+		}
+		for (Cell[] row : cells)
+		{
+			for (Cell cell : row)
+			{
+				if (cell.clue == NO_INFO) continue;
+				int on = 0;
+				for (Edge e : cell.es)
+					if (e.state > OFF) on++;
+				if (on != cell.clue) return false;
+			}
+		}
+		return true;
 	}
 
 	public void enqueueNext()
 	{
-		for (Cell c : queue)
+		queue.enqueueNext();
+	}
+	//hand out clued cells with the most decided edges first (see PriorityCellQueue); call before solve()
+	public void usePriorityQueue()
+	{
+		CellQueue prioritized = new PriorityCellQueue(rows*cols);
+		while (!queue.isEmpty())
 		{
-			interesting.remove(c);
+			int index = queue.poll();
+			prioritized.add(index,rank(cells[index/cols][index%cols]));
 		}
-		queue.addAll(interesting);
-		interesting.clear();
+		prioritized.enqueueNext();
+		queue = prioritized;
+		priority = true;
 	}
 	public boolean fillCellQuota(Cell c)
 	{
@@ -376,9 +1386,11 @@ public class SlitherSolverOO
 			if (e.state == OFF) offEdges++;
 		if (offEdges == 4-c.clue)
 		{
+			int before = decided;
 			for (Edge e : c.es)
 				if (e.state == UNKNOWN) 
 					addEdge(e);
+			counted(RuleStats.Rule.FILL_QUOTA,before);
 			return true;
 		}
 		return false;
@@ -392,9 +1404,9 @@ public class SlitherSolverOO
 			{
 				int color1 = e.get(VERT_UL).color;
 				int color2 = e.get(VERT_RD).color;
-				if (color1 > 0 && color1 == color2)
+				if (color1 > 0 && color2 > 0 && loops.same(color1,color2) && !finishes(e,color1))
 				{
-					e.state = OFF;
+					e.set(OFF);
 					changed = true;
 					vertexBecomesInteresting(e.get(VERT_UL),c);
 					vertexBecomesInteresting(e.get(VERT_RD),c);
@@ -403,6 +1415,25 @@ public class SlitherSolverOO
 		}
 		return changed;
 	}
+	//whether closing segment color with e makes the whole answer: no on edges anywhere else, every clue met.
+	//any other closure is too early, and e stays open
+	boolean finishes(Edge e, int color)
+	{
+		if (onEdges != loops.length(color))
+			return false;
+		for (Cell[] row : cells)
+		{
+			for (Cell cell : row)
+			{
+				if (cell.clue == NO_INFO) continue;
+				int count = 0;
+				for (Edge other : cell.es)
+					if (other.state > OFF || other == e) count++;
+				if (count != cell.clue) return false;
+			}
+		}
+		return true;
+	}
 	public void resolveOneCell(Cell c)
 	{
 		Edge onEdge = null;
@@ -414,13 +1445,13 @@ public class SlitherSolverOO
 			for (Edge e : c.es)
 				if (onEdge != e)
 					removeEdge(e);
-			c.done = true;
+			c.setDone(true);
 			//System.err.printf("Done: %d,%d (%d)\n",c.row,c.col,c.clue);
-			updateVertices(c.row,c.col);
+			updateDirtyVertices();
 		}
 		else
 		{
-			byte[] vstates = new byte[4];
+			byte[] vstates = scratch;
 			boolean changed = true;
 			
 			while (changed)
@@ -472,7 +1503,7 @@ public class SlitherSolverOO
 				c.vertex(VERT_UR).update(ALL - LD,true,c);
 				c.vertex(VERT_LD).update(ALL - UR,true,c);
 				c.vertex(VERT_RD).update(ALL - UL,true,c);
-				updateVertices(c.row,c.col);
+				updateDirtyVertices();
 				
 				for (byte vin = VERT_UL; vin <= VERT_RD; vin++)
 				{
@@ -483,9 +1514,9 @@ public class SlitherSolverOO
 			
 			if (fillCellQuota(c))
 			{
-				c.done = true;
+				c.setDone(true);
 				//System.err.printf("Done: %d,%d (%d)\n",c.row,c.col,c.clue);
-				updateVertices(c.row,c.col);
+				updateDirtyVertices();
 			}
 		}
 		//cellBecomesInteresting(c.row,c.col);
@@ -502,14 +1533,14 @@ public class SlitherSolverOO
 			for (Edge e : c.es)
 				if (e.state == UNKNOWN)
 					removeEdge(e);
-			c.done = true;
+			c.setDone(true);
 			//System.err.printf("Done: %d,%d (%d)\n",c.row,c.col,c.clue);
-			updateVertices(c.row,c.col);
+			updateDirtyVertices();
 			return;
 		}
 		else
 		{
-			byte[] vstates = new byte[4];
+			byte[] vstates = scratch;
 			boolean changed = true;
 			
 			while (changed)
@@ -696,7 +1727,7 @@ public class SlitherSolverOO
 					c.vertex(VERT_UL).update(ALL - (UL | RD | UNUSED),true,c);
 				}
 
-				updateVertices(c.row,c.col);
+				updateDirtyVertices();
 				
 				for (byte vin = VERT_UL; vin <= VERT_RD; vin++)
 					if (vstates[vin] != c.vs[vin].state)
@@ -705,9 +1736,9 @@ public class SlitherSolverOO
 			
 			if (fillCellQuota(c))
 			{
-				c.done = true;
+				c.setDone(true);
 				//System.err.printf("Done: %d,%d (%d)\n",c.row,c.col,c.clue);
-				updateVertices(c.row,c.col);
+				updateDirtyVertices();
 			}
 		}
 		//cellBecomesInteresting(c.row,c.col);
@@ -724,13 +1755,13 @@ public class SlitherSolverOO
 			for (Edge e : c.es)
 				if (e.state == UNKNOWN)
 					removeEdge(e);
-			c.done = true;
+			c.setDone(true);
 			//System.err.printf("Done: %d,%d (%d)\n",c.row,c.col,c.clue);
-			updateVertices(c.row,c.col);
+			updateDirtyVertices();
 		}
 		else
 		{
-			byte[] vstates = new byte[4];
+			byte[] vstates = scratch;
 			boolean changed = true;
 			
 			while (changed)
@@ -742,71 +1773,95 @@ public class SlitherSolverOO
 				//pigeonhole principle
 				if ((c.vertex(VERT_UL).state&RD) == 0)
 				{
+					int before = decided;
 					addEdge(c.edge(EDGE_RIGHT));
 					addEdge(c.edge(EDGE_DOWN));
+					counted(RuleStats.Rule.THREE_PIGEONHOLE,before);
 				}
 				if ((c.vertex(VERT_UR).state&LD) == 0)
 				{
+					int before = decided;
 					addEdge(c.edge(EDGE_LEFT));
 					addEdge(c.edge(EDGE_DOWN));
+					counted(RuleStats.Rule.THREE_PIGEONHOLE,before);
 				}
 				if ((c.vertex(VERT_LD).state&UR) == 0)
 				{
+					int before = decided;
 					addEdge(c.edge(EDGE_UP));
 					addEdge(c.edge(EDGE_RIGHT));
+					counted(RuleStats.Rule.THREE_PIGEONHOLE,before);
 				}
 				if ((c.vertex(VERT_RD).state&UL) == 0)
 				{
+					int before = decided;
 					addEdge(c.edge(EDGE_UP));
 					addEdge(c.edge(EDGE_LEFT));
+					counted(RuleStats.Rule.THREE_PIGEONHOLE,before);
 				}
 				
 				//send a signal
 				if (c.vertex(VERT_UL).state == RD)
 				{
+					int before = decided;
 					c.vertex(VERT_RD).update(ALL-UL,true,c);
+					counted(RuleStats.Rule.THREE_SIGNAL,before);
 				}
 				if (c.vertex(VERT_UR).state == LD)
 				{
+					int before = decided;
 					c.vertex(VERT_LD).update(ALL-UR,true,c);
+					counted(RuleStats.Rule.THREE_SIGNAL,before);
 				}
 				if (c.vertex(VERT_LD).state == UR)
 				{
+					int before = decided;
 					c.vertex(VERT_UR).update(ALL-LD,true,c);
+					counted(RuleStats.Rule.THREE_SIGNAL,before);
 				}
 				if (c.vertex(VERT_RD).state == UL)
 				{
+					int before = decided;
 					c.vertex(VERT_UL).update(ALL-RD,true,c);
+					counted(RuleStats.Rule.THREE_SIGNAL,before);
 				}
 				
 				//adjacent threes
 				if (c.row > 0 && cells[c.row-1][c.col].clue == 3)
 				{
+					int before = decided;
 					addEdge(c.edge(EDGE_UP));
 					addEdge(c.edge(EDGE_DOWN));
 					c.vertex(VERT_UL).update(UR | RD,true,c);
 					c.vertex(VERT_UR).update(UL | LD,true,c);
+					counted(RuleStats.Rule.THREE_ADJACENT,before);
 				}
 				if (c.row < rows-1 && cells[c.row+1][c.col].clue == 3)
 				{
+					int before = decided;
 					addEdge(c.edge(EDGE_UP));
 					addEdge(c.edge(EDGE_DOWN));
 					c.vertex(VERT_LD).update(UR | RD,true,c);
 					c.vertex(VERT_RD).update(UL | LD,true,c);
+					counted(RuleStats.Rule.THREE_ADJACENT,before);
 				}
 				if (c.col > 0 && cells[c.row][c.col-1].clue == 3)
 				{
+					int before = decided;
 					addEdge(c.edge(EDGE_LEFT));
 					addEdge(c.edge(EDGE_RIGHT));
 					c.vertex(VERT_UL).update(LD | RD,true,c);
 					c.vertex(VERT_LD).update(UL | UR,true,c);
+					counted(RuleStats.Rule.THREE_ADJACENT,before);
 				}
 				if (c.col < cols-1 && cells[c.row][c.col+1].clue == 3)
 				{
+					int before = decided;
 					addEdge(c.edge(EDGE_LEFT));
 					addEdge(c.edge(EDGE_RIGHT));
 					c.vertex(VERT_UR).update(LD | RD,true,c);
 					c.vertex(VERT_RD).update(UL | UR,true,c);
+					counted(RuleStats.Rule.THREE_ADJACENT,before);
 				}
 				
 				//loop closing stuff
@@ -863,7 +1918,7 @@ public class SlitherSolverOO
 				c.vertex(VERT_UR).update(ALL - (UR | UNUSED),true,c);
 				c.vertex(VERT_LD).update(ALL - (LD | UNUSED),true,c);
 				c.vertex(VERT_RD).update(ALL - (RD | UNUSED),true,c);
-				updateVertices(c.row,c.col);
+				updateDirtyVertices();
 				
 				for (byte vin = VERT_UL; vin <= VERT_RD; vin++)
 					if (vstates[vin] != c.vs[vin].state)
@@ -872,9 +1927,9 @@ public class SlitherSolverOO
 			
 			if (fillCellQuota(c))
 			{
-				c.done = true;
+				c.setDone(true);
 				//System.err.printf("Done: %d,%d (%d)\n",c.row,c.col,c.clue);
-				updateVertices(c.row,c.col);
+				updateDirtyVertices();
 			}
 		}
 		//cellBecomesInteresting(c.row,c.col);
@@ -900,18 +1955,67 @@ public class SlitherSolverOO
 	{
 		if (e == null) return;
 		if (e.state != UNKNOWN) return;
-		e.state = OFF;
+		e.set(OFF);
 		vertexBecomesInteresting(e.get(VERT_UL));
 		vertexBecomesInteresting(e.get(VERT_RD));		
 	}
-	public void updateVertices(int row, int col)
+	//rerun updateVertex() wherever something changed, until nothing does.
+	//a vertex nothing happened to would come to the same conclusions as last time
+	public void updateDirtyVertices()
+	{
+		dirty.enqueueNext();
+		while (!dirty.isEmpty() && !contradiction)
+		{
+			int index = dirty.poll();
+			updateVertex(index/(cols+1),index%(cols+1));
+			dirty.enqueueNext();
+		}
+	}
+	void vertexChanged(Vertex v)
 	{
-		updateVertex(row,col);
-		updateVertex(row,col+1);
-		updateVertex(row+1,col);
-		updateVertex(row+1,col+1);
+		dirty.add(v.row*(cols+1)+v.col);
 	}
+	//see VertexTable: the mask and the four edges decide everything, so it's all worked out in advance
 	public void updateVertex(int row, int col)
+	{
+		Vertex vert = vertices[row][col];
+		int entry = VertexTable.lookup(vert.state,vert.getEdgeState(EDGE_UP),vert.getEdgeState(EDGE_LEFT),
+			vert.getEdgeState(EDGE_RIGHT),vert.getEdgeState(EDGE_DOWN));
+		vert.setState((byte)(entry & VertexTable.MASK));
+		if ((entry & ~VertexTable.MASK) == 0)
+			return;
+		int on = 0;
+		int off = 0;
+		for (byte d = EDGE_UP; d <= EDGE_DOWN; d++)
+		{
+			if (VertexTable.on(entry,d) && matchColors(vert,d))
+			{
+				vertexBecomesInteresting(vert.getVertex(d));
+				on++;
+			}
+			if (VertexTable.off(entry,d))
+			{
+				vert.get(d).set(OFF);
+				vertexBecomesInteresting(vert.getVertex(d));
+				off++;
+			}
+		}
+		if ((entry & VertexTable.CONTRADICTION) != 0)
+			contradiction = true;
+		if (stats != null)
+		{
+			if (on > 0)
+				stats.record(RuleStats.Rule.VERTEX_ON,on,0);
+			if (off > 0)
+				stats.record(RuleStats.Rule.VERTEX_OFF,off,0);
+			if ((entry & VertexTable.CONTRADICTION) != 0)
+				stats.record(RuleStats.Rule.VERTEX_CONTRADICTION,0,0);
+		}
+		if ((entry & VertexTable.INTERESTING) != 0)
+			vertexBecomesInteresting(row,col);
+	}
+	//the rules the table was built from, kept to check it against (java VertexTable)
+	public void updateVertexByRules(int row, int col)
 	{
 		Vertex vert = vertices[row][col];
 		byte v = vert.state;
@@ -969,7 +2073,12 @@ public class SlitherSolverOO
 			}
 		}
 		changed = (vert.state != v);
-		vert.state = v;
+		vert.setState(v);
+		if (v == 0)
+		{
+			contradiction = true;
+			return;
+		}
 		boolean done = Integer.bitCount(v) == 1;
 		
 		if (done)
@@ -984,7 +2093,9 @@ public class SlitherSolverOO
 			{
 				if (vert.get(EDGE_UP).state != OFF)
 				{
-					vert.get(EDGE_UP).state = OFF;
+					if (vert.get(EDGE_UP).state > OFF)
+						contradiction = true;
+					vert.get(EDGE_UP).set(OFF);
 					vertexBecomesInteresting(vert.getVertex(EDGE_UP));
 				}
 			}
@@ -998,7 +2109,9 @@ public class SlitherSolverOO
 			{
 				if (vert.get(EDGE_LEFT).state != OFF)
 				{
-					vert.get(EDGE_LEFT).state = OFF;
+					if (vert.get(EDGE_LEFT).state > OFF)
+						contradiction = true;
+					vert.get(EDGE_LEFT).set(OFF);
 					vertexBecomesInteresting(vert.getVertex(EDGE_LEFT));
 				}
 			}
@@ -1012,7 +2125,9 @@ public class SlitherSolverOO
 			{
 				if (vert.get(EDGE_RIGHT).state != OFF)
 				{
-					vert.get(EDGE_RIGHT).state = OFF;
+					if (vert.get(EDGE_RIGHT).state > OFF)
+						contradiction = true;
+					vert.get(EDGE_RIGHT).set(OFF);
 					vertexBecomesInteresting(vert.getVertex(EDGE_RIGHT));
 				}
 			}
@@ -1026,7 +2141,9 @@ public class SlitherSolverOO
 			{
 				if (vert.get(EDGE_DOWN).state != OFF)
 				{
-					vert.get(EDGE_DOWN).state = OFF;
+					if (vert.get(EDGE_DOWN).state > OFF)
+						contradiction = true;
+					vert.get(EDGE_DOWN).set(OFF);
 					vertexBecomesInteresting(vert.getVertex(EDGE_DOWN));
 				}
 			}
@@ -1086,10 +2203,15 @@ public class SlitherSolverOO
 					v &= ALL - (UL | UR | LR | UNUSED);
 				}
 				changed |= (vert.state != v);
-				vert.state = v;
+				vert.setState(v);
+				if (v == 0)
+				{
+					contradiction = true;
+					return;
+				}
 				if (Integer.bitCount(v) == 1)
 				{
-					updateVertex(row,col);
+					updateVertexByRules(row,col);
 					return;
 				}
 				boolean upOff = (row > 0) && (vert.get(EDGE_UP).state == UNKNOWN) && ((v&(UL|UR|UD))==0);
@@ -1098,25 +2220,25 @@ public class SlitherSolverOO
 				boolean downOff = (row < rows) && (vert.get(EDGE_DOWN).state == UNKNOWN) && ((v&(UD|LD|RD))==0);
 				if (upOff)
 				{
-					vert.get(EDGE_UP).state = OFF;
+					vert.get(EDGE_UP).set(OFF);
 					vertexBecomesInteresting(vert.getVertex(EDGE_UP));
 					interesting = true;
 				}
 				if (leftOff)
 				{
-					vert.get(EDGE_LEFT).state = OFF;
+					vert.get(EDGE_LEFT).set(OFF);
 					vertexBecomesInteresting(vert.getVertex(EDGE_LEFT));
 					interesting = true;
 				}
 				if (rightOff)
 				{
-					vert.get(EDGE_RIGHT).state = OFF;
+					vert.get(EDGE_RIGHT).set(OFF);
 					vertexBecomesInteresting(vert.getVertex(EDGE_RIGHT));
 					interesting = true;
 				}
 				if (downOff)
 				{
-					vert.get(EDGE_DOWN).state = OFF;
+					vert.get(EDGE_DOWN).set(OFF);
 					vertexBecomesInteresting(vert.getVertex(EDGE_DOWN));
 					interesting = true;
 				}
@@ -1139,29 +2261,46 @@ public class SlitherSolverOO
 
 		}
 	}
-	public void floodColor(Vertex v, int newColor)
+	//fills in a solution found before (see SolutionCache) without solving anything:
+	//the edges as given, and each vertex down to the one combination they make
+	public void apply(Solution s)
 	{
-		boolean foundEdge = true;
-		boolean interesting = false;
-		while(foundEdge)
+		for (int r = 0; r < rows*2+1; r++)
 		{
-			v.color = newColor;
-			foundEdge = false;
-			for (byte d = EDGE_UP; d <= EDGE_DOWN; d++)
+			for (int c = 0; c < (r%2 == 0 ? cols : cols+1); c++)
 			{
-				Edge tempEdge = v.get(d);
-				if (tempEdge != null && tempEdge.state > OFF && tempEdge.state != newColor)
-				{
-					tempEdge.state = newColor;
-					v = v.getVertex(d);
-					foundEdge = true;
-					interesting = true;
-					break;
-				}
+				if (!s.isOn(r,c))
+					edges[r][c].set(OFF);
+				else if (r%2 == 0)
+					matchColors(vertices[r/2][c],EDGE_RIGHT);
+				else
+					matchColors(vertices[r/2][c],EDGE_DOWN);
 			}
 		}
-		if (interesting)
-			vertexBecomesInteresting(v);
+		for (Vertex[] row : vertices)
+		{
+			for (Vertex v : row)
+			{
+				int on = 0;
+				for (byte d = EDGE_UP; d <= EDGE_DOWN; d++)
+					if (v.getEdgeState(d) > OFF) on |= 1 << d;
+				v.setState(PAIRS[on]);
+			}
+		}
+		queue.clear();
+		dirty.clear();
+	}
+	//the combination for a set of on edges (1 << EDGE_* each); 0 for the ones a loop can't make
+	static final byte[] PAIRS = new byte[16];
+	static
+	{
+		PAIRS[0] = UNUSED;
+		PAIRS[1 << EDGE_UP | 1 << EDGE_LEFT] = UL;
+		PAIRS[1 << EDGE_UP | 1 << EDGE_RIGHT] = UR;
+		PAIRS[1 << EDGE_UP | 1 << EDGE_DOWN] = UD;
+		PAIRS[1 << EDGE_LEFT | 1 << EDGE_RIGHT] = LR;
+		PAIRS[1 << EDGE_LEFT | 1 << EDGE_DOWN] = LD;
+		PAIRS[1 << EDGE_RIGHT | 1 << EDGE_DOWN] = RD;
 	}
 	//returns true iff something was changed
 	public boolean matchColors(Vertex v1, byte dir)
@@ -1172,41 +2311,50 @@ public class SlitherSolverOO
 		//v1.give(dir);
 		v2.give(reverse(dir));
 		
+		int id1 = v1.row*(cols+1)+v1.col;
+		int id2 = v2.row*(cols+1)+v2.col;
 		int newColor;
 		if (v1.color == 0 && v2.color == 0) //first connection for both
 		{
-			newColor = nextColor++;
-			v1.color = newColor;
-			v2.color = newColor;
-			e.state = newColor;
+			newColor = loops.create(id1,id2);
+			v1.setColor(newColor);
+			v2.setColor(newColor);
+			e.set(newColor);
 			return true;
 		}
-		if (v1.color == v2.color) //already the same, fill in the edge just in case
+		if (v1.color != 0 && v2.color != 0 && loops.same(v1.color,v2.color)) //already the same, fill in the edge just in case
 		{
-			if (e.state == v1.color) return false;
-			e.state = v1.color;
+			if (e.state > OFF) return false;
+			loopClosed = true;
+			e.set(loops.close(v1.color));
 			return true;
 		}
-		//if either one is unused, it assumes the color of the other
+		//if either one is unused, it joins the segment of the other
 		if (v1.color == 0)
 		{
-			newColor = v2.color;
-			v1.color = newColor;
-			e.state = newColor;
+			newColor = loops.extend(v2.color,id2,id1);
+			v1.setColor(newColor);
+			e.set(newColor);
 			return true;
 		}
 		if (v2.color == 0)
 		{
-			newColor = v1.color;
-			v2.color = newColor;
-			e.state = newColor;
+			newColor = loops.extend(v1.color,id1,id2);
+			v2.setColor(newColor);
+			e.set(newColor);
 			return true;
 		}
-		//if both are used, one color predominates
-		newColor = v1.color;
-		e.state = newColor;
-		//and we have to floodfill the other segment with the new color
-		floodColor(v2,newColor);
+		//if both are used, the two segments become one set; nothing gets repainted,
+		//but the far end of v2's segment is now a loose end of something longer
+		int far = loops.otherEnd(v2.color,id2);
+		int root1 = loops.find(v1.color);
+		int root2 = loops.find(v2.color);
+		if (stats != null)
+			stats.record(RuleStats.Rule.LOOP_JOIN,Math.min(loops.length(root1),loops.length(root2)),0);
+		newColor = loops.join(root1,id1,root2,id2);
+		e.set(newColor);
+		listener.colorMerged(newColor == root1 ? root2 : root1,newColor);
+		vertexBecomesInteresting(vertices[far/(cols+1)][far%(cols+1)]);
 		
 		return true;
 	}
@@ -1260,7 +2408,16 @@ public class SlitherSolverOO
 	public void cellBecomesInteresting(int r, int c)
 	{
 		if (r >= 0 && r < rows && c >= 0 && c < cols && !cells[r][c].done)
-			interesting.add(cells[r][c]);
+			queue.add(r*cols+c,rank(cells[r][c]));
+	}
+	//for PriorityCellQueue: empty cells last, clued ones by how many edges are decided
+	int rank(Cell c)
+	{
+		if (c.clue == NO_INFO) return 0;
+		int known = 1;
+		for (Edge e : c.es)
+			if (e.state != UNKNOWN) known++;
+		return known;
 	}
 	public void print()
 	{
@@ -1276,106 +2433,12 @@ public class SlitherSolverOO
 	public void print(boolean showXs, boolean unicode)
 	{
 		//draw it with Unicode box-drawing characters! why not.
-		StringBuilder out = new StringBuilder((rows+1)*(cols+3)*7);
-		for (int r = 0; r < rows*2+1; r++)
-		{
-			for (int c = 0; c < cols*2+1; c++)
-			{
-				if (r%2 == 0 && c%2 == 0)
-				{
-					byte v = vertices[r/2][c/2].state;
-					if (unicode)
-					{
-						if (v == UD)
-							out.append('\u2502');
-						else if (v == UL)
-							out.append('\u2518');
-						else if (v == UR)
-							out.append('\u2514');
-						else if (v == LR)
-							out.append('\u2500');
-						else if (v == LD)
-							out.append('\u2510');
-						else if (v == RD)
-							out.append('\u250c');
-						else
-							out.append(' ');
-					}
-					else
-					{
-						if (v == UD)
-							out.append('|');
-						else if (v == UL)
-							out.append('+');
-						else if (v == UR)
-							out.append('+');
-						else if (v == LR)
-							out.append('-');
-						else if (v == LD)
-							out.append('+');
-						else if (v == RD)
-							out.append('+');
-						else
-							out.append(' ');
-					}
-				}
-				else if (r%2 == 0)
-				{
-					int e = edges[r][c/2].state;
-					if (e > OFF)
-					{
-						if (unicode)
-							out.append('\u2500');
-						else
-							out.append('-');
-					}
-					else if (e == OFF && showXs)
-						out.append('x');
-					else
-						out.append(' ');
-				}
-				else if (c%2 == 0)
-				{
-					int e = edges[r][c/2].state;
-					if (e > OFF)
-					{
-						if (unicode)
-							out.append('\u2502');
-						else
-							out.append('|');
-					}
-					else if (e == OFF && showXs)
-						out.append('x');
-					else
-						out.append(' ');
-				}
-				else
-				{
-					byte cell = cells[r/2][c/2].clue;
-					if (cell < NO_INFO)
-						out.append((char)('0'+cell));
-					else if (showXs)
-						out.append('.');
-					else
-						out.append(' ');
-				}
-			}
-			out.append('\n');
-		}
-		if (unicode)
-		{
-			try {
-				//(new PrintStream(System.out,true,"UTF-8")).print(out);
-				byte[] encoded = out.toString().getBytes("UTF-8");
-				System.out.write(encoded,0,encoded.length);
-			} catch(Exception e) {
-				System.err.println("UTF-8 printing failed");
-				System.out.print(out);
-			}
-		}
-		else
-		{
-			System.out.print(out);
+		if (renderer == null)
+			renderer = new BoardRenderer(rows,cols);
+		try {
+			renderer.render(this,showXs,unicode).writeTo(System.out);
+		} catch (IOException e) {
+			System.err.println("printing failed");
 		}
 	}
 	public void dumpVertices()
@@ -1414,26 +2477,44 @@ public class SlitherSolverOO
 		{
 			row = r;
 			col = c;
+			reset();
+		}
+		//everything the border allows, no color
+		void reset()
+		{
 			byte subtract = 0x00;
-			if (r == 0)
+			if (row == 0)
 			{
 				subtract |= (UL | UR | UD);
 			}
-			else if (r == rows)
+			else if (row == rows)
 			{
 				subtract |= (UD | LD | RD);
 			}
-			if (c == 0)
+			if (col == 0)
 			{
 				subtract |= (UL | LR | LD);
 			}
-			else if (c == cols)
+			else if (col == cols)
 			{
 				subtract |= (UR | LR | RD);
 			}
-			state |= ALL - subtract;
+			state = (byte)(ALL - subtract);
 			color = UNKNOWN;
 		}
+		//state and color as everything else should change them, so a Trail sees it
+		void setState(byte s)
+		{
+			if (trail != null && s != state)
+				trail.push(Trail.VERTEX,row*(cols+1)+col,state);
+			state = s;
+		}
+		void setColor(int c)
+		{
+			if (trail != null)
+				trail.push(Trail.COLOR,row*(cols+1)+col,color);
+			color = c;
+		}
 		public boolean update(int mask)
 		{
 			return update((byte)mask,false,null);
@@ -1458,30 +2539,39 @@ public class SlitherSolverOO
 		{
 			byte newState = (byte)(state & mask);
 			boolean changed = newState != state;
-			state = newState;
+			setState(newState);
+			if (state == 0)
+				contradiction = true;
+			if (changed)
+				vertexChanged(this);
 			if (changed && becomeInteresting)
 				vertexBecomesInteresting(this,toExclude);
 			return changed;
 		}
 		public void give(byte dir)
 		{
+			byte oldState = state;
 			switch(dir)
 			{
 				case EDGE_UP:
-					state &= ALL - (UNUSED | LR | LD | RD);
+					setState((byte)(state & (ALL - (UNUSED | LR | LD | RD))));
 					break;
 				case EDGE_LEFT:
-					state &= ALL - (UNUSED | UR | UD | RD);
+					setState((byte)(state & (ALL - (UNUSED | UR | UD | RD))));
 					break;
 				case EDGE_RIGHT:
-					state &= ALL - (UNUSED | UL | LD | UD);
+					setState((byte)(state & (ALL - (UNUSED | UL | LD | UD))));
 					break;
 				case EDGE_DOWN:
-					state &= ALL - (UNUSED | LR | UL | UR);
+					setState((byte)(state & (ALL - (UNUSED | LR | UL | UR))));
 					break;
 				default:
 					break;
 			}
+			if (state == 0)
+				contradiction = true;
+			if (state != oldState)
+				vertexChanged(this);
 		}
 		
 		public Edge get(byte dir)
@@ -1510,7 +2600,7 @@ public class SlitherSolverOO
 		{
 			Edge e = get(dir);
 			if (e == null) return;
-			e.state = newState;
+			e.set(newState);
 		}
 		public Vertex getVertex(byte dir)
 		{
@@ -1562,11 +2652,23 @@ public class SlitherSolverOO
 					return null;
 			}
 		}
+		public void set(int newState)
+		{
+			if (state == UNKNOWN)
+				decided++;
+			if (trail != null && newState != state)
+				trail.push(Trail.EDGE,row*(cols+1)+col,state);
+			onEdges += (newState > OFF ? 1 : 0) - (state > OFF ? 1 : 0);
+			state = newState;
+			vertexChanged(get(VERT_UL));
+			vertexChanged(get(VERT_RD));
+			listener.edgeSet(row,col,newState);
+		}
 		public boolean turnOff()
 		{
 			if (state == UNKNOWN)
 			{
-				state = OFF;
+				set(OFF);
 				return true;
 			}
 			return false;
@@ -1598,6 +2700,12 @@ public class SlitherSolverOO
 				vs[i] = vertex(i);
 			}
 		}
+		void setDone(boolean d)
+		{
+			if (trail != null && d != done)
+				trail.push(Trail.DONE,row*cols+col,done ? 1 : 0);
+			done = d;
+		}
 		public Edge edge(byte dir)
 		{
 			switch(dir)
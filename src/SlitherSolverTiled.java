@@ -0,0 +1,282 @@
+//SlitherSolverFlat, run on several threads at once for big boards: the rows are split into tiles (bands of whole rows,
+//one per thread), and each tile works through its own queue with the usual rules, on the one set of arrays they all share.
+//edges go from UNKNOWN to on or off by compare-and-set, and masks only ever lose bits (again by compare-and-set),
+//so a rule that reads something another tile has just changed only ever sees more than it would have otherwise.
+//a cell that becomes interesting in someone else's tile goes in that tile's inbox. the loop segments
+//(LoopSets and the vertex colors) are one structure for the whole board, so they're worked on under its lock.
+//tiles run in rounds until they're all out of work and nothing's waiting in any inbox; then that's the same fixpoint
+//the single-threaded solver gets to, just sooner on enough cores.
+//
+//java SlitherSolverTiled [-threads n] [html] < puzzle
+
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class SlitherSolverTiled extends SlitherSolverFlat
+{
+	static final VarHandle EDGES = MethodHandles.arrayElementVarHandle(int[].class);
+	static final VarHandle MASKS = MethodHandles.arrayElementVarHandle(byte[].class);
+	static final VarHandle ON = on();
+
+	static VarHandle on()
+	{
+		try {
+			return MethodHandles.lookup().findVarHandle(SlitherSolverFlat.class,"on",int.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	int band; //rows to a tile
+	Tile[] tiles;
+	ForkJoinPool pool;
+	//an edge turned up both on and off
+	volatile boolean contradiction;
+	int rounds;
+
+	//as many tiles as p has threads, or rows if that's fewer
+	public SlitherSolverTiled(String inSource, ForkJoinPool p)
+	{
+		this(PuzzleParser.parse(inSource.getBytes(StandardCharsets.UTF_8)),p);
+	}
+	SlitherSolverTiled(PuzzleParser parser, ForkJoinPool p)
+	{
+		super(parser);
+		pool = p;
+		int count = Math.max(1,Math.min(p.getParallelism(),rows));
+		band = (rows+count-1)/count;
+		tiles = new Tile[(rows+band-1)/band];
+		for (int i = 0; i < tiles.length; i++)
+			tiles[i] = new Tile(i*band*cols,Math.min(rows,(i+1)*band)*cols);
+	}
+
+	public static void main(String[] args)
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean html = false;
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-threads"))
+				threads = Integer.parseInt(args[++i]);
+			else
+				html = true;
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		SlitherSolverTiled s;
+		try {
+			if (html)
+				s = new SlitherSolverTiled(SlitherSolverOO.stripHTML(System.in),pool);
+			else
+				s = new SlitherSolverTiled(PuzzleParser.parse(SlitherSolverOO.readAll(System.in)),pool);
+		} catch (PuzzleFormatException e) {
+			System.err.println(e.getMessage());
+			return;
+		} catch (UncheckedIOException e) {
+			System.err.println(e.getCause().getMessage());
+			return;
+		}
+		long start = System.nanoTime();
+		s.solve();
+		System.err.printf("%d tiles on %d threads: %d rounds, %.3f ms%s\n",s.tiles.length,threads,s.rounds,
+			(System.nanoTime()-start)/1e6,s.contradiction ? ", contradiction" : "");
+		pool.shutdown();
+		s.print(false);
+	}
+
+	int tileOf(int c)
+	{
+		return c/cols/band;
+	}
+
+	//hand whatever's been queued to the tiles it belongs to, then rounds until nobody has anything left
+	public void solve()
+	{
+		while (!queue.isEmpty())
+		{
+			int c = queue.poll();
+			tiles[tileOf(c)].queue.add(c);
+		}
+		ArrayList<Callable<Void>> work = new ArrayList<Callable<Void>>();
+		for (Tile t : tiles)
+		{
+			t.enqueueNext();
+			work.add(t);
+		}
+		boolean waiting = true;
+		while (waiting)
+		{
+			rounds++;
+			for (Future<Void> f : pool.invokeAll(work))
+			{
+				try {
+					f.get();
+				} catch (InterruptedException | ExecutionException e) {
+					throw new IllegalStateException("a tile failed",e.getCause() == null ? e : e.getCause());
+				}
+			}
+			waiting = false;
+			for (Tile t : tiles)
+				waiting |= !t.inbox.isEmpty();
+		}
+		iters = 0;
+		for (Tile t : tiles)
+			iters += t.iters;
+	}
+
+	//a CellQueue of just the cells first to last-1, which are still called by their numbers on the whole board
+	static class BandQueue extends CellQueue
+	{
+		int first;
+
+		public BandQueue(int f, int last)
+		{
+			super(last-f);
+			first = f;
+		}
+		public void add(int c, int rank)
+		{
+			super.add(c-first,rank);
+		}
+		public int poll()
+		{
+			return super.poll()+first;
+		}
+	}
+
+	//cells handed over from other tiles, each one at most once until the tile takes them
+	static class Inbox
+	{
+		int first;
+		int[] cells;
+		int size;
+		boolean[] posted;
+
+		public Inbox(int f, int last)
+		{
+			first = f;
+			cells = new int[last-f];
+			posted = new boolean[last-f];
+		}
+		public synchronized void post(int c)
+		{
+			if (!posted[c-first])
+			{
+				posted[c-first] = true;
+				cells[size++] = c;
+			}
+		}
+		public synchronized void drainInto(CellQueue queue)
+		{
+			for (int i = 0; i < size; i++)
+			{
+				posted[cells[i]-first] = false;
+				queue.add(cells[i]);
+			}
+			size = 0;
+		}
+		public synchronized boolean isEmpty()
+		{
+			return size == 0;
+		}
+	}
+
+	//the whole board's arrays, its own queues: cells first to last-1, and whichever vertices its changes touch
+	class Tile extends SlitherSolverFlat implements Callable<Void>
+	{
+		Inbox inbox;
+
+		public Tile(int first, int last)
+		{
+			SlitherSolverTiled board = SlitherSolverTiled.this;
+			rows = board.rows;
+			cols = board.cols;
+			w = board.w;
+			clue = board.clue;
+			done = board.done;
+			edge = board.edge;
+			vstate = board.vstate;
+			vcolor = board.vcolor;
+			loops = board.loops;
+			queue = new BandQueue(first,last);
+			dirty = new CellQueue((rows+1)*w);
+			inbox = new Inbox(first,last);
+		}
+
+		//to a fixpoint of its own, taking in whatever the others hand over on the way
+		public Void call()
+		{
+			while (true)
+			{
+				inbox.drainInto(queue);
+				queue.enqueueNext();
+				if (queue.isEmpty())
+					return null;
+				solve();
+			}
+		}
+
+		public void cellBecomesInteresting(int c)
+		{
+			if (done[c])
+				return;
+			Tile owner = tiles[tileOf(c)];
+			if (owner == this)
+				queue.add(c);
+			else
+				owner.inbox.post(c);
+		}
+		//the first one to decide an edge wins; deciding it the other way is a contradiction.
+		//the count of on edges is the whole board's
+		void setEdge(int e, int state)
+		{
+			if (EDGES.compareAndSet(edge,e,UNKNOWN,state))
+			{
+				if (state > OFF)
+					ON.getAndAdd(SlitherSolverTiled.this,1);
+			}
+			else
+			{
+				int now = (int)EDGES.getVolatile(edge,e);
+				if ((now > OFF) != (state > OFF))
+					contradiction = true;
+			}
+			dirty.add(edgeVertexUL(e));
+			dirty.add(edgeVertexRD(e));
+		}
+		int onEdges()
+		{
+			return (int)ON.getVolatile(SlitherSolverTiled.this);
+		}
+		void setMask(int v, byte state)
+		{
+			while (true)
+			{
+				byte now = (byte)MASKS.getVolatile(vstate,v);
+				byte narrowed = (byte)(now & state);
+				if (narrowed == now || MASKS.compareAndSet(vstate,v,now,narrowed))
+					return;
+			}
+		}
+		public boolean matchColors(int v1, byte dir)
+		{
+			synchronized (loops) {
+				return super.matchColors(v1,dir);
+			}
+		}
+		boolean stayOpenEdge(int e, int c)
+		{
+			if (edge[e] != UNKNOWN)
+				return false;
+			synchronized (loops) {
+				return super.stayOpenEdge(e,c);
+			}
+		}
+	}
+}
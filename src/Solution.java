@@ -0,0 +1,234 @@
+//a solved (or partly solved) board boiled down to which edges are on: bit row*(cols+1)+col for edges[row][col],
+//the same layout both solvers keep their edges in (the padding slot at the end of each row of horizontal edges is always 0).
+//three ways to write one out, each starting with rows and cols as unsigned 16-bit big-endian numbers:
+//	RAW		the bits, 8 to a byte, low bit first; ((rows*2+1)*(cols+1)+7)/8 bytes
+//	BASE64	RAW, in base64 (ASCII)
+//	RLE		the lengths of the runs of off and on edges, alternately, starting with off (maybe 0), in nibbles:
+//			3 bits of length each, low bits first, 8 set on every nibble of a length but the last; low nibble of a byte first.
+//			runs around a loop are short, so RAW is the smallest for a whole solved board, but a mostly empty one packs down further
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.BitSet;
+
+public class Solution
+{
+	public enum Format { RAW, BASE64, RLE }
+
+	int rows, cols;
+	BitSet on;
+
+	public Solution(int r, int c, BitSet o)
+	{
+		rows = r;
+		cols = c;
+		on = o;
+	}
+	public static Solution of(SlitherSolverOO s)
+	{
+		BitSet on = new BitSet(bits(s.rows,s.cols));
+		for (int r = 0; r < s.rows*2+1; r++)
+			for (int c = 0; c < (r%2 == 0 ? s.cols : s.cols+1); c++)
+				if (s.edges[r][c].state > SlitherSolverOO.OFF)
+					on.set(r*(s.cols+1)+c);
+		return new Solution(s.rows,s.cols,on);
+	}
+	public static Solution of(SlitherSolverFlat s)
+	{
+		BitSet on = new BitSet(bits(s.rows,s.cols));
+		for (int r = 0; r < s.rows*2+1; r++)
+			for (int c = 0; c < (r%2 == 0 ? s.cols : s.cols+1); c++)
+				if (s.edge[r*s.w+c] > SlitherSolverFlat.OFF)
+					on.set(r*s.w+c);
+		return new Solution(s.rows,s.cols,on);
+	}
+	static int bits(int rows, int cols)
+	{
+		return (rows*2+1)*(cols+1);
+	}
+
+	public int getRows()
+	{
+		return rows;
+	}
+	public int getCols()
+	{
+		return cols;
+	}
+	//is edges[row][col] on?
+	public boolean isOn(int row, int col)
+	{
+		return on.get(row*(cols+1)+col);
+	}
+
+	//exactly how many bytes write() puts out
+	public int size(Format f)
+	{
+		int raw = 4 + (bits(rows,cols)+7)/8;
+		switch (f)
+		{
+			case RAW:
+				return raw;
+			case BASE64:
+				return (raw+2)/3*4;
+			default:
+				int nibbles = 0;
+				for (int at = 0, value = 0, total = bits(rows,cols); at < total; value ^= 1)
+				{
+					int end = runEnd(at,value,total);
+					nibbles += nibbles(end-at);
+					at = end;
+				}
+				return 4 + (nibbles+1)/2;
+		}
+	}
+	public void write(Format f, ByteBuffer out)
+	{
+		if (f == Format.BASE64)
+		{
+			ByteBuffer raw = ByteBuffer.allocate(size(Format.RAW));
+			write(Format.RAW,raw);
+			raw.flip();
+			out.put(Base64.getEncoder().encode(raw));
+			return;
+		}
+		out.putShort((short)rows);
+		out.putShort((short)cols);
+		int total = bits(rows,cols);
+		if (f == Format.RAW)
+		{
+			byte[] bytes = on.toByteArray();
+			out.put(bytes,0,Math.min(bytes.length,(total+7)/8));
+			for (int i = bytes.length; i < (total+7)/8; i++)
+				out.put((byte)0);
+			return;
+		}
+		int pending = -1;
+		for (int at = 0, value = 0; at < total; value ^= 1)
+		{
+			int end = runEnd(at,value,total);
+			int run = end-at;
+			do {
+				int nibble = run & 7;
+				run >>>= 3;
+				if (run != 0)
+					nibble |= 8;
+				if (pending < 0)
+					pending = nibble;
+				else
+				{
+					out.put((byte)(pending | nibble << 4));
+					pending = -1;
+				}
+			} while (run != 0);
+			at = end;
+		}
+		if (pending >= 0)
+			out.put((byte)pending);
+	}
+	public void write(Format f, OutputStream out) throws IOException
+	{
+		byte[] bytes = toBytes(f);
+		out.write(bytes,0,bytes.length);
+	}
+	public byte[] toBytes(Format f)
+	{
+		ByteBuffer out = ByteBuffer.allocate(size(f));
+		write(f,out);
+		return out.array();
+	}
+	public String toString()
+	{
+		return new String(toBytes(Format.BASE64),StandardCharsets.US_ASCII);
+	}
+	int runEnd(int at, int value, int total)
+	{
+		int end = value == 0 ? on.nextSetBit(at) : on.nextClearBit(at);
+		return end < 0 || end > total ? total : end;
+	}
+	static int nibbles(int run)
+	{
+		int n = 1;
+		while (run >= 8)
+		{
+			run >>>= 3;
+			n++;
+		}
+		return n;
+	}
+
+	//the other way; in is left just past the solution
+	public static Solution read(Format f, ByteBuffer in)
+	{
+		if (f == Format.BASE64)
+		{
+			if (in.remaining() < 8)
+				throw new IllegalArgumentException("solution cut short");
+			//the first 4 characters are rows and cols, which say how long the rest is
+			ByteBuffer head = Base64.getDecoder().decode(in.duplicate().limit(in.position()+8));
+			int length = (4 + (bits(head.getShort(0) & 0xFFFF,head.getShort(2) & 0xFFFF)+7)/8 + 2)/3*4;
+			if (in.remaining() < length)
+				throw new IllegalArgumentException("solution cut short");
+			ByteBuffer text = in.duplicate();
+			text.limit(in.position()+length);
+			in.position(in.position()+length);
+			return read(Format.RAW,Base64.getDecoder().decode(text));
+		}
+		int rows = in.getShort() & 0xFFFF;
+		int cols = in.getShort() & 0xFFFF;
+		int total = bits(rows,cols);
+		if (f == Format.RAW)
+		{
+			int length = (total+7)/8;
+			if (in.remaining() < length)
+				throw new IllegalArgumentException("solution cut short");
+			ByteBuffer bytes = in.duplicate();
+			bytes.limit(in.position()+length);
+			in.position(in.position()+length);
+			return new Solution(rows,cols,BitSet.valueOf(bytes));
+		}
+		BitSet on = new BitSet(total);
+		int b = 0;
+		boolean high = false;
+		for (int at = 0, value = 0; at < total; value ^= 1)
+		{
+			int run = 0;
+			for (int shift = 0; ; shift += 3)
+			{
+				if (shift > 27 || (!high && !in.hasRemaining()))
+					throw new IllegalArgumentException("bad run length");
+				int nibble;
+				if (high)
+					nibble = b >> 4;
+				else
+				{
+					b = in.get() & 0xFF;
+					nibble = b & 15;
+				}
+				high = !high;
+				run |= (nibble & 7) << shift;
+				if (nibble < 8) break;
+			}
+			if (run > total-at)
+				throw new IllegalArgumentException("runs go past the end of the board");
+			if (value == 1)
+				on.set(at,at+run);
+			at += run;
+		}
+		return new Solution(rows,cols,on);
+	}
+
+	public boolean equals(Object o)
+	{
+		if (!(o instanceof Solution)) return false;
+		Solution s = (Solution)o;
+		return rows == s.rows && cols == s.cols && on.equals(s.on);
+	}
+	public int hashCode()
+	{
+		return (rows*31 + cols)*31 + on.hashCode();
+	}
+}
@@ -0,0 +1,271 @@
+//solutions of puzzles seen before, so a resubmitted puzzle doesn't get solved again, even turned or mirrored.
+//a puzzle is keyed by the smallest of its 8 rotations and reflections (dims first, then the clues in order),
+//and its solution is stored turned the same way; a hit turns it back to match the puzzle that was asked about.
+//the least recently used puzzles go once there are more than capacity; save() writes the lot to a file,
+//which the constructor reads back in, so the cache can outlive the process:
+//	"SLSC", version, count, then for each puzzle (least recently used first): rows, cols (16 bits each),
+//	the clues packed as PuzzleArchive packs them, and the solution as Solution.Format.RAW without its header
+//
+//everything is synchronized, so solver threads can share one.
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SolutionCache
+{
+	static final int MAGIC = 0x534C5343; //"SLSC"
+	static final int VERSION = 1;
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	//a puzzle turned to its canonical orientation; symmetry says how, and isn't part of the key
+	static class Key
+	{
+		int rows, cols;
+		byte[] packed;
+		int hash;
+		int symmetry;
+
+		public Key(int r, int c, byte[] p, int s)
+		{
+			rows = r;
+			cols = c;
+			packed = p;
+			symmetry = s;
+			hash = (r*31 + c)*31 + Arrays.hashCode(p);
+		}
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key)) return false;
+			Key k = (Key)o;
+			return rows == k.rows && cols == k.cols && Arrays.equals(packed,k.packed);
+		}
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
+
+	LinkedHashMap<Key,Solution> entries;
+	int capacity;
+	Path file;
+	long hits, misses;
+
+	public SolutionCache(int c)
+	{
+		capacity = c;
+		entries = new LinkedHashMap<Key,Solution>(16,0.75f,true)
+		{
+			protected boolean removeEldestEntry(Map.Entry<Key,Solution> eldest)
+			{
+				return size() > capacity;
+			}
+		};
+	}
+	//backed by f: whatever's in it already is loaded now, and save() writes back to it
+	public SolutionCache(int c, Path f) throws IOException
+	{
+		this(c);
+		file = f;
+		if (Files.exists(f))
+			load(f);
+	}
+
+	//the 8 symmetries, as where a point (r,c) of the turned board comes from on the original, which is maxR by maxC
+	//(0-maxR and 0-maxC, inclusive). odd ones swap rows and columns
+	static int fromRow(int t, int r, int c, int maxR, int maxC)
+	{
+		switch (t)
+		{
+			case 0: case 4: return r;
+			case 1: case 5: return c;
+			case 2: case 6: return maxR-r;
+			default: return maxR-c;
+		}
+	}
+	static int fromCol(int t, int r, int c, int maxR, int maxC)
+	{
+		switch (t)
+		{
+			case 0: case 6: return c;
+			case 1: case 7: return maxC-r;
+			case 2: case 4: return maxC-c;
+			default: return r; //3 and 5
+		}
+	}
+	static boolean swaps(int t)
+	{
+		return t%2 == 1;
+	}
+
+	//the key for a puzzle: clues[row*cols+col], 0-4 or NO_INFO
+	public static Key key(int rows, int cols, byte[] clues)
+	{
+		//compare the symmetries without building them; only the winner gets written out
+		int best = 0;
+		for (int t = 1; t < 8; t++)
+			if (compare(rows,cols,clues,t,best) < 0)
+				best = t;
+		int r2 = swaps(best) ? cols : rows;
+		int c2 = swaps(best) ? rows : cols;
+		byte[] turned = new byte[rows*cols];
+		for (int r = 0; r < r2; r++)
+			for (int c = 0; c < c2; c++)
+				turned[r*c2+c] = clues[fromRow(best,r,c,rows-1,cols-1)*cols + fromCol(best,r,c,rows-1,cols-1)];
+		return new Key(r2,c2,PuzzleArchive.pack(turned,turned.length),best);
+	}
+	static int compare(int rows, int cols, byte[] clues, int t1, int t2)
+	{
+		int r1 = swaps(t1) ? cols : rows;
+		int r2 = swaps(t2) ? cols : rows;
+		if (r1 != r2)
+			return r1 - r2;
+		int c1 = swaps(t1) ? rows : cols;
+		for (int r = 0; r < r1; r++)
+		{
+			for (int c = 0; c < c1; c++)
+			{
+				byte a = clues[fromRow(t1,r,c,rows-1,cols-1)*cols + fromCol(t1,r,c,rows-1,cols-1)];
+				byte b = clues[fromRow(t2,r,c,rows-1,cols-1)*cols + fromCol(t2,r,c,rows-1,cols-1)];
+				if (a != b)
+					return a - b;
+			}
+		}
+		return 0;
+	}
+	public static Key key(SlitherSolverOO board)
+	{
+		byte[] clues = new byte[board.rows*board.cols];
+		for (int i = 0; i < clues.length; i++)
+			clues[i] = board.cells[i/board.cols][i%board.cols].clue;
+		return key(board.rows,board.cols,clues);
+	}
+
+	//the solution for the puzzle key came from, or null
+	public synchronized Solution get(Key key)
+	{
+		Solution canonical = entries.get(key);
+		if (canonical == null)
+		{
+			misses++;
+			return null;
+		}
+		hits++;
+		return turn(canonical,key.symmetry,true);
+	}
+	public synchronized void put(Key key, Solution s)
+	{
+		entries.put(key,turn(s,key.symmetry,false));
+	}
+	//fills the cached solution in on board, without solving anything.
+	//false on a miss: then it's up to the caller to solve the board and put() it
+	public boolean solve(SlitherSolverOO board, Key key)
+	{
+		Solution s = get(key);
+		if (s == null)
+			return false;
+		board.apply(s);
+		return true;
+	}
+
+	//from the original orientation to the turned one (back false), or from the turned one back (back true).
+	//each edge of the turned board has its two ends looked up on the original
+	static Solution turn(Solution s, int t, boolean back)
+	{
+		if (t == 0)
+			return s;
+		int rows = back ? (swaps(t) ? s.cols : s.rows) : s.rows;
+		int cols = back ? (swaps(t) ? s.rows : s.cols) : s.cols;
+		int tRows = swaps(t) ? cols : rows;
+		int tCols = swaps(t) ? rows : cols;
+		BitSet out = new BitSet(Solution.bits(back ? rows : tRows,back ? cols : tCols));
+		for (int r = 0; r < tRows*2+1; r++)
+		{
+			for (int c = 0; c < (r%2 == 0 ? tCols : tCols+1); c++)
+			{
+				int r1 = r/2;
+				int c1 = c;
+				int r2 = r%2 == 0 ? r1 : r1+1;
+				int c2 = r%2 == 0 ? c1+1 : c1;
+				int or1 = fromRow(t,r1,c1,rows,cols), oc1 = fromCol(t,r1,c1,rows,cols);
+				int or2 = fromRow(t,r2,c2,rows,cols), oc2 = fromCol(t,r2,c2,rows,cols);
+				int original = or1 == or2
+					? (or1*2)*(cols+1) + Math.min(oc1,oc2)
+					: (Math.min(or1,or2)*2+1)*(cols+1) + oc1;
+				int turned = r*(tCols+1) + c;
+				if (back)
+				{
+					if (s.on.get(turned))
+						out.set(original);
+				}
+				else if (s.on.get(original))
+					out.set(turned);
+			}
+		}
+		return back ? new Solution(rows,cols,out) : new Solution(tRows,tCols,out);
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+	public synchronized String report()
+	{
+		return String.format("solution cache: %d puzzles, %d hits, %d misses",entries.size(),hits,misses);
+	}
+
+	void load(Path f) throws IOException
+	{
+		ByteBuffer in;
+		try (FileChannel channel = FileChannel.open(f,StandardOpenOption.READ)) {
+			in = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+		}
+		if (in.remaining() < 12 || in.getInt() != MAGIC || in.getInt() != VERSION)
+			throw new IOException(f + " isn't a solution cache");
+		int count = in.getInt();
+		try {
+			for (int i = 0; i < count; i++)
+			{
+				int rows = in.getShort() & 0xFFFF;
+				int cols = in.getShort() & 0xFFFF;
+				byte[] packed = new byte[(int)PuzzleArchive.packedSize((long)rows*cols)];
+				in.get(packed);
+				byte[] bits = new byte[(Solution.bits(rows,cols)+7)/8];
+				in.get(bits);
+				entries.put(new Key(rows,cols,packed,0),new Solution(rows,cols,BitSet.valueOf(bits)));
+			}
+		} catch (java.nio.BufferUnderflowException e) {
+			throw new IOException(f + " is cut short");
+		}
+	}
+	//to the file given to the constructor; written beside it first, then moved over it
+	public synchronized void save() throws IOException
+	{
+		if (file == null)
+			throw new IllegalStateException("no file to save to");
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(entries.size());
+			for (Map.Entry<Key,Solution> e : entries.entrySet())
+			{
+				Key k = e.getKey();
+				out.writeShort(k.rows);
+				out.writeShort(k.cols);
+				out.write(k.packed);
+				byte[] raw = e.getValue().toBytes(Solution.Format.RAW);
+				out.write(raw,4,raw.length-4);
+			}
+		}
+		Files.move(temp,file,StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,17 @@
+//hooks into SlitherSolverOO.solve(), for progress reports and debugging.
+//everything defaults to doing nothing, so a board without a listener does no extra work.
+//edges are given by their position in the edges[rows*2+1][cols+1] grid
+
+public interface SolveListener
+{
+	SolveListener NONE = new SolveListener() {};
+
+	//a cell was taken off the queue; iteration counts from 0
+	default void cellProcessed(int row, int col, int iteration) {}
+	//an edge was turned off (state OFF) or on (state is its color)
+	default void edgeSet(int row, int col, int state) {}
+	//two segments were joined, and everything colored from now has to be colored into
+	default void colorMerged(int from, int into) {}
+	//the queue ran dry (or a contradiction stopped things)
+	default void finished(int iterations) {}
+}
@@ -0,0 +1,44 @@
+//a log of the changes made to a SlitherSolverOO, so they can be taken back: each entry says what changed
+//(the kind, in the top 4 bits, and which one, as an index into the board's edges, vertices or cells, or LoopSets' arrays)
+//and what it was before. a board with no Trail (the usual case) logs nothing.
+//edges are row*(cols+1)+col, vertices the same, cells row*cols+col
+
+import java.util.Arrays;
+
+public class Trail
+{
+	static final int EDGE = 0; //Edge.state
+	static final int VERTEX = 1; //Vertex.state
+	static final int COLOR = 2; //Vertex.color
+	static final int DONE = 3; //Cell.done, 1 or 0
+	static final int CLUE = 4; //Cell.clue
+	static final int FLAGS = 5; //contradiction and loopClosed (1 and 2); the index is how many edges had been decided
+	static final int PARENT = 6; //LoopSets
+	static final int SIZE = 7;
+	static final int LENGTH = 8;
+	static final int END_A = 9;
+	static final int END_B = 10;
+	static final int NEXT = 11;
+
+	static final int INDEX = (1 << 28) - 1;
+
+	int[] entries = new int[256]; //kind and index, then the old value
+	int size; //ints used, two to an entry
+
+	public void push(int kind, int index, int old)
+	{
+		if (size == entries.length)
+			entries = Arrays.copyOf(entries,size*2);
+		entries[size++] = kind << 28 | index;
+		entries[size++] = old;
+	}
+	//where things stand; see SlitherSolverOO.rollback()
+	public int mark()
+	{
+		return size;
+	}
+	public void clear()
+	{
+		size = 0;
+	}
+}
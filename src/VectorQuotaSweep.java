@@ -0,0 +1,70 @@
+//QuotaSweep with the Vector API: a row of cells is counted a vector's worth of columns at a time,
+//from four straight loads of the edge array (up, left, right one over, down), with the odd columns at the end done
+//one by one. needs jdk.incubator.vector at compile time and run time; QuotaSweep.of() falls back without it
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorQuotaSweep extends QuotaSweep
+{
+	static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	public VectorQuotaSweep(SlitherSolverFlat board)
+	{
+		super(board);
+	}
+
+	public int sweep(int[] edge, int[] out)
+	{
+		int count = 0;
+		int lanes = SPECIES.length();
+		int bound = SPECIES.loopBound(cols);
+		IntVector zero = IntVector.zero(SPECIES);
+		for (int r = 0; r < rows; r++)
+		{
+			int up = r*2*w, side = up+w, down = up+2*w, first = r*cols;
+			int col = 0;
+			for (; col < bound; col += lanes)
+			{
+				IntVector on = zero, off = zero;
+				IntVector e = IntVector.fromArray(SPECIES,edge,up+col);
+				on = on.add(1,e.compare(VectorOperators.GT,OFF));
+				off = off.add(1,e.compare(VectorOperators.EQ,OFF));
+				e = IntVector.fromArray(SPECIES,edge,side+col);
+				on = on.add(1,e.compare(VectorOperators.GT,OFF));
+				off = off.add(1,e.compare(VectorOperators.EQ,OFF));
+				e = IntVector.fromArray(SPECIES,edge,side+col+1);
+				on = on.add(1,e.compare(VectorOperators.GT,OFF));
+				off = off.add(1,e.compare(VectorOperators.EQ,OFF));
+				e = IntVector.fromArray(SPECIES,edge,down+col);
+				on = on.add(1,e.compare(VectorOperators.GT,OFF));
+				off = off.add(1,e.compare(VectorOperators.EQ,OFF));
+
+				IntVector clue = IntVector.fromArray(SPECIES,clues,first+col);
+				VectorMask<Integer> clued = clue.compare(VectorOperators.NE,NO_INFO);
+				VectorMask<Integer> open = on.add(off).compare(VectorOperators.LT,4);
+				VectorMask<Integer> full = on.compare(VectorOperators.EQ,clue)
+					.or(off.compare(VectorOperators.EQ,clue.neg().add(4)));
+				VectorMask<Integer> hit = clued.and(open).and(full).or(clued.or(open).not());
+
+				long bits = hit.toLong();
+				while (bits != 0)
+				{
+					out[count++] = first+col+Long.numberOfTrailingZeros(bits);
+					bits &= bits-1;
+				}
+			}
+			for (; col < cols; col++)
+				if (saturated(edge,first+col) != OPEN)
+					out[count++] = first+col;
+		}
+		return count;
+	}
+
+	public String toString()
+	{
+		return SPECIES.length() + " lanes";
+	}
+}
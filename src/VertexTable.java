@@ -0,0 +1,248 @@
+//updateVertex() as a lookup table. what it does depends only on the vertex's mask and the states of its four edges,
+//so all 128*81 cases are worked out once, up front, and solving a vertex is one array load plus applying the result.
+//edges count as unknown, off or on (any color); a missing edge at the border of the grid is just off.
+//
+//java VertexTable checks every case against SlitherSolverOO.updateVertexByRules()
+
+public class VertexTable
+{
+	//an entry: the vertex's new mask, which edges to turn on and which to turn off (by EDGE_* direction), and flags
+	static final int MASK = 0x7F;
+	static final int ON_SHIFT = 7;
+	static final int OFF_SHIFT = 11;
+	static final int CONTRADICTION = 1 << 15;
+	static final int INTERESTING = 1 << 16; //the cells around the vertex itself should take another look
+
+	//edge codes
+	static final int UNKNOWN = 0;
+	static final int OFF = 1;
+	static final int ON = 2;
+
+	//the combinations using each edge, by direction
+	static final int[] USES = {
+		SlitherSolverOO.UL | SlitherSolverOO.UR | SlitherSolverOO.UD,
+		SlitherSolverOO.UL | SlitherSolverOO.LR | SlitherSolverOO.LD,
+		SlitherSolverOO.UR | SlitherSolverOO.LR | SlitherSolverOO.RD,
+		SlitherSolverOO.UD | SlitherSolverOO.LD | SlitherSolverOO.RD
+	};
+
+	static final int[] TABLE = build();
+
+	//edge states as the solvers keep them: UNKNOWN, OFF, or a color
+	public static int lookup(int mask, int up, int left, int right, int down)
+	{
+		return TABLE[mask*81 + code(up)*27 + code(left)*9 + code(right)*3 + code(down)];
+	}
+	static int code(int state)
+	{
+		return state > OFF ? ON : state;
+	}
+	public static boolean on(int entry, int dir)
+	{
+		return (entry & (1 << (ON_SHIFT+dir))) != 0;
+	}
+	public static boolean off(int entry, int dir)
+	{
+		return (entry & (1 << (OFF_SHIFT+dir))) != 0;
+	}
+
+	static int[] build()
+	{
+		int[] table = new int[128*81];
+		int[] e = new int[4];
+		for (int mask = 0; mask < 128; mask++)
+		{
+			for (int edges = 0; edges < 81; edges++)
+			{
+				e[0] = edges/27;
+				e[1] = edges/9%3;
+				e[2] = edges/3%3;
+				e[3] = edges%3;
+				int[] out = {mask,0,0,0};
+				update(mask,e,out);
+				table[mask*81 + edges] = out[0] | out[1] << ON_SHIFT | out[2] << OFF_SHIFT | out[3];
+			}
+		}
+		return table;
+	}
+	//updateVertexByRules() on a vertex by itself: out is the mask, the edges turned on, the edges turned off, and flags.
+	//e gets changed along the way
+	static void update(int v, int[] e, int[] out)
+	{
+		if (Integer.bitCount(v) == 1 && e[0] != UNKNOWN && e[1] != UNKNOWN && e[2] != UNKNOWN && e[3] != UNKNOWN)
+			return;
+
+		//an edge that's off rules out everything using it, and a direction nothing uses can't have an edge
+		boolean[] ok = new boolean[4];
+		boolean changed = true;
+		while (changed)
+		{
+			int nv = v;
+			for (int d = 0; d < 4; d++)
+			{
+				ok[d] = e[d] != OFF && (v & USES[d]) != 0;
+				if (!ok[d])
+					nv &= MASK - USES[d];
+			}
+			changed = nv != v;
+			v = nv;
+		}
+		changed = out[0] != v;
+		out[0] = v;
+		if (v == 0)
+		{
+			out[3] |= CONTRADICTION;
+			return;
+		}
+
+		if (Integer.bitCount(v) == 1)
+		{
+			for (int d = 0; d < 4; d++)
+			{
+				if (ok[d])
+				{
+					if (e[d] == UNKNOWN)
+					{
+						e[d] = ON;
+						out[1] |= 1 << d;
+					}
+				}
+				else if (e[d] != OFF)
+				{
+					if (e[d] == ON)
+						out[3] |= CONTRADICTION;
+					e[d] = OFF;
+					out[2] |= 1 << d;
+				}
+			}
+			return;
+		}
+
+		//still more than one possibility
+		boolean interesting = changed;
+		changed = true;
+		while (changed)
+		{
+			changed = false;
+			//if everything left uses an edge, it's on
+			for (int d = 0; d < 4; d++)
+			{
+				if ((v & (MASK - USES[d])) == 0 && e[d] == UNKNOWN)
+				{
+					e[d] = ON;
+					out[1] |= 1 << d;
+					changed = true;
+				}
+			}
+			for (int d = 0; d < 4; d++)
+				if (e[d] == ON)
+					v &= USES[d];
+			changed |= out[0] != v;
+			out[0] = v;
+			if (v == 0)
+			{
+				out[3] |= CONTRADICTION;
+				return;
+			}
+			if (Integer.bitCount(v) == 1)
+			{
+				update(v,e,out);
+				return;
+			}
+			//if nothing left uses it, it's off
+			for (int d = 0; d < 4; d++)
+			{
+				if (e[d] == UNKNOWN && (v & USES[d]) == 0)
+				{
+					e[d] = OFF;
+					out[2] |= 1 << d;
+					interesting = true;
+				}
+			}
+			interesting |= changed;
+		}
+		if (interesting)
+			out[3] |= INTERESTING;
+	}
+
+	//every mask and edge combination, on an inner vertex, a border vertex and a corner:
+	//the table and the rules have to leave two boards in the same state
+	public static void main(String[] args)
+	{
+		int[][] spots = {{2,2},{0,2},{2,0},{4,2},{2,4},{0,0},{4,4}};
+		int cases = 0;
+		int failures = 0;
+		for (int[] spot : spots)
+		{
+			for (int mask = 0; mask < 128; mask++)
+			{
+				for (int edges = 0; edges < 81; edges++)
+				{
+					int[] e = {edges/27, edges/9%3, edges/3%3, edges%3};
+					SlitherSolverOO byRules = board(spot[0],spot[1],mask,e);
+					if (byRules == null) continue; //an edge that isn't there, and isn't off
+					SlitherSolverOO byTable = board(spot[0],spot[1],mask,e);
+					byRules.updateVertexByRules(spot[0],spot[1]);
+					byTable.updateVertex(spot[0],spot[1]);
+					cases++;
+					String difference = compare(byRules,byTable);
+					if (difference != null)
+					{
+						if (failures < 20)
+							System.out.printf("vertex %d,%d mask %d edges %d%d%d%d: %s\n",
+								spot[0],spot[1],mask,e[0],e[1],e[2],e[3],difference);
+						failures++;
+					}
+				}
+			}
+		}
+		System.out.printf("%d cases, %d differences\n",cases,failures);
+		if (failures > 0)
+			System.exit(1);
+	}
+	//a 4x4 board with one vertex set up, and nothing waiting to be done
+	static SlitherSolverOO board(int row, int col, int mask, int[] e)
+	{
+		SlitherSolverOO b = new SlitherSolverOO(4,4);
+		SlitherSolverOO.Vertex v = b.vertices[row][col];
+		for (byte d = SlitherSolverOO.EDGE_UP; d <= SlitherSolverOO.EDGE_DOWN; d++)
+		{
+			if (v.get(d) == null)
+			{
+				if (e[d] != OFF) return null;
+				continue;
+			}
+			if (e[d] == OFF)
+				v.get(d).set(SlitherSolverOO.OFF);
+			else if (e[d] == ON)
+				b.matchColors(v,d);
+		}
+		v.state = (byte)mask;
+		b.queue.clear();
+		b.dirty.clear();
+		b.contradiction = false;
+		return b;
+	}
+	static String compare(SlitherSolverOO a, SlitherSolverOO b)
+	{
+		if (a.contradiction != b.contradiction) return "contradiction";
+		if (a.loopClosed != b.loopClosed) return "loop closed";
+		for (int r = 0; r <= a.rows; r++)
+			for (int c = 0; c <= a.cols; c++)
+				if (a.vertices[r][c].state != b.vertices[r][c].state)
+					return "vertex " + r + "," + c;
+		for (int r = 0; r < a.rows*2+1; r++)
+			for (int c = 0; c < (r%2 == 0 ? a.cols : a.cols+1); c++)
+				if (code(a.edges[r][c].state) != code(b.edges[r][c].state))
+					return "edge " + r + "," + c;
+		a.enqueueNext();
+		b.enqueueNext();
+		if (!java.util.Arrays.equals(a.queue.queued,b.queue.queued))
+			return "interesting cells";
+		a.dirty.enqueueNext();
+		b.dirty.enqueueNext();
+		if (!java.util.Arrays.equals(a.dirty.queued,b.dirty.queued))
+			return "dirty vertices";
+		return null;
+	}
+}
@@ -0,0 +1,289 @@
+//everything that follows from a cell's clue and the edges right around it, worked out once for every case and kept
+//in a file the solver maps. the window is the cell's four edges and the two edges leading away from each of its corners,
+//twelve in all, which is every edge at those four vertices; so within it the rules are exact:
+//the clue has that many of the cell's edges, and each corner has none or two. for each clue (0-4, or none)
+//and every way the twelve can be unknown, off or on, the table says which of the unknown ones are the same in every
+//way of filling them in that keeps to those rules (or that there's no such way).
+//it's 6*3^12 entries, 3 bytes each (the forced on edges, then the forced off ones, 12 bits apiece), after a header.
+//each case is the combination of the two cases with its first unknown edge decided, so building it is one pass.
+//the build does that (process-classes) into the classes directory, and load() maps it from the classpath.
+//
+//java WindowTable file				writes the table
+//java WindowTable -check [file]	checks a sample of it (the one on the classpath if no file is given) against trying
+//									every way of filling in the unknown edges
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+public class WindowTable
+{
+	static final String RESOURCE = "windows.tbl";
+	static final int MAGIC = 0x534C5754; //SLWT
+	static final int VERSION = 1;
+	static final int HEADER = 12; //magic, version, entries
+
+	static final int EDGES = 12;
+	static final int CASES = 531441; //3^12, per clue
+	static final int ENTRIES = CASES*6;
+	static final int ALL = (1 << EDGES) - 1;
+	static final int CONTRADICTION = 0xFFFFFF; //every edge forced both ways
+
+	//edge codes, as in VertexTable
+	static final int UNKNOWN = 0;
+	static final int OFF = 1;
+	static final int ON = 2;
+
+	//the window's edges: the cell's own four (by EDGE_* direction), then the two leading away from each corner
+	static final byte[] CORNER = {
+		SlitherSolverOO.VERT_UL, SlitherSolverOO.VERT_UL, SlitherSolverOO.VERT_UR, SlitherSolverOO.VERT_UR,
+		SlitherSolverOO.VERT_LD, SlitherSolverOO.VERT_LD, SlitherSolverOO.VERT_RD, SlitherSolverOO.VERT_RD};
+	static final byte[] AWAY = {
+		SlitherSolverOO.EDGE_UP, SlitherSolverOO.EDGE_LEFT, SlitherSolverOO.EDGE_UP, SlitherSolverOO.EDGE_RIGHT,
+		SlitherSolverOO.EDGE_LEFT, SlitherSolverOO.EDGE_DOWN, SlitherSolverOO.EDGE_RIGHT, SlitherSolverOO.EDGE_DOWN};
+	//the four edges at each corner, as window bits
+	static final int[] AT_CORNER = {
+		1 << 0 | 1 << 1 | 1 << 4 | 1 << 5, //UL: the cell's up and left
+		1 << 0 | 1 << 2 | 1 << 6 | 1 << 7, //UR: up and right
+		1 << 1 | 1 << 3 | 1 << 8 | 1 << 9, //LD: left and down
+		1 << 2 | 1 << 3 | 1 << 10 | 1 << 11 //RD: right and down
+	};
+
+	ByteBuffer table;
+
+	public WindowTable(ByteBuffer t)
+	{
+		table = t;
+	}
+
+	//the table the build put on the classpath: mapped where it's a file, read in from a jar
+	public static WindowTable load() throws IOException
+	{
+		URL url = WindowTable.class.getResource("/" + RESOURCE);
+		if (url == null)
+			throw new IOException(RESOURCE + " isn't on the classpath; the build makes it (mvn process-classes), "
+				+ "or java WindowTable <classes dir>/" + RESOURCE);
+		if (url.getProtocol().equals("file"))
+		{
+			try {
+				return open(Paths.get(url.toURI()));
+			} catch (URISyntaxException e) {
+				throw new IOException(url + ": " + e.getMessage());
+			}
+		}
+		try (InputStream in = url.openStream()) {
+			byte[] bytes = in.readAllBytes();
+			return of(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip(),url.toString());
+		}
+	}
+	public static WindowTable open(Path file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file,StandardOpenOption.READ)) {
+			return of(channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size()),file.toString());
+		}
+	}
+	static WindowTable of(ByteBuffer table, String from) throws IOException
+	{
+		if (table.capacity() != HEADER + ENTRIES*3L || table.getInt(0) != MAGIC || table.getInt(4) != VERSION
+			|| table.getInt(8) != ENTRIES)
+			throw new IOException(from + " isn't a window table, or is from another version; rebuild it");
+		return new WindowTable(table);
+	}
+	public static void write(Path file) throws IOException
+	{
+		ByteBuffer out = ByteBuffer.allocate(HEADER + ENTRIES*3);
+		out.putInt(MAGIC).putInt(VERSION).putInt(ENTRIES);
+		int[] on = new int[CASES], off = new int[CASES];
+		for (int clue = 0; clue <= SlitherSolverOO.NO_INFO; clue++)
+		{
+			build(clue,on,off);
+			for (int i = 0; i < CASES; i++)
+				put(out,entry(i,on[i],off[i]));
+		}
+		//written whole and then moved into place, so a reader never maps half a table
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.write(temp,out.array());
+		Files.move(temp,file,StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+	}
+	static void put(ByteBuffer out, int entry)
+	{
+		out.put((byte)(entry >>> 16)).put((byte)(entry >>> 8)).put((byte)entry);
+	}
+
+	//for every case: the edges on in every way of filling it in (on[]) and the ones off in every way (off[]);
+	//no ways at all leaves both at ALL
+	static void build(int clue, int[] on, int[] off)
+	{
+		//a case is bigger than the ones with any of its unknown edges decided, so from the top down
+		for (int i = CASES-1; i >= 0; i--)
+		{
+			int unknown = -1;
+			int bits = 0;
+			for (int e = 0, rest = i; e < EDGES; e++, rest /= 3)
+			{
+				int code = rest%3;
+				if (code == UNKNOWN && unknown < 0)
+					unknown = e;
+				if (code == ON)
+					bits |= 1 << e;
+			}
+			if (unknown < 0)
+			{
+				boolean fits = fits(clue,bits);
+				on[i] = fits ? bits : ALL;
+				off[i] = fits ? ~bits & ALL : ALL;
+			}
+			else
+			{
+				int step = pow3(unknown);
+				on[i] = on[i+step*OFF] & on[i+step*ON];
+				off[i] = off[i+step*OFF] & off[i+step*ON];
+			}
+		}
+	}
+	static boolean fits(int clue, int bits)
+	{
+		if (clue <= 4 && Integer.bitCount(bits & 0xF) != clue)
+			return false;
+		for (int corner : AT_CORNER)
+		{
+			int degree = Integer.bitCount(bits & corner);
+			if (degree != 0 && degree != 2)
+				return false;
+		}
+		return true;
+	}
+	static int pow3(int n)
+	{
+		int p = 1;
+		for (int i = 0; i < n; i++)
+			p *= 3;
+		return p;
+	}
+	//only what isn't known already
+	static int entry(int i, int on, int off)
+	{
+		if ((on & off) != 0)
+			return CONTRADICTION;
+		int unknown = 0;
+		for (int e = 0, rest = i; e < EDGES; e++, rest /= 3)
+			if (rest%3 == UNKNOWN)
+				unknown |= 1 << e;
+		return (on & unknown) << EDGES | off & unknown;
+	}
+
+	public int lookup(int clue, int index)
+	{
+		int at = HEADER + (clue*CASES + index)*3;
+		return (table.get(at) & 0xFF) << 16 | (table.get(at+1) & 0xFF) << 8 | table.get(at+2) & 0xFF;
+	}
+	public static boolean forcedOn(int entry, int edge)
+	{
+		return (entry >>> EDGES & 1 << edge) != 0;
+	}
+	public static boolean forcedOff(int entry, int edge)
+	{
+		return (entry & 1 << edge) != 0;
+	}
+
+	//the window around c, as a case number; edges off the board are off
+	static int index(SlitherSolverOO.Cell c)
+	{
+		int index = 0;
+		for (int e = EDGES-1; e >= 0; e--)
+			index = index*3 + code(edge(c,e));
+		return index;
+	}
+	static SlitherSolverOO.Edge edge(SlitherSolverOO.Cell c, int e)
+	{
+		return e < 4 ? c.es[e] : c.vs[CORNER[e-4]].get(AWAY[e-4]);
+	}
+	static int code(SlitherSolverOO.Edge e)
+	{
+		return e == null ? OFF : e.state > OFF ? ON : e.state;
+	}
+
+	//whatever the table says about c's window; returns whether any edges changed
+	public boolean apply(SlitherSolverOO board, SlitherSolverOO.Cell c)
+	{
+		int entry = lookup(c.clue,index(c));
+		if (entry == 0)
+			return false;
+		if (entry == CONTRADICTION)
+		{
+			board.contradiction = true;
+			return false;
+		}
+		for (int e = 0; e < EDGES; e++)
+		{
+			if (forcedOn(entry,e))
+				board.addEdge(edge(c,e));
+			else if (forcedOff(entry,e))
+				board.removeEdge(edge(c,e));
+		}
+		return true;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		boolean check = args.length > 0 && args[0].equals("-check");
+		if (!check)
+		{
+			if (args.length == 0)
+			{
+				System.err.println("java WindowTable file");
+				return;
+			}
+			Path file = Paths.get(args[0]);
+			long start = System.nanoTime();
+			write(file);
+			System.err.printf("%d cases written to %s in %.1f s\n",ENTRIES,file,(System.nanoTime()-start)/1e9);
+			return;
+		}
+		WindowTable t = args.length > 1 ? open(Paths.get(args[1])) : load();
+		Random random = new Random(1);
+		int differences = 0, cases = 200000;
+		for (int n = 0; n < cases; n++)
+		{
+			int clue = random.nextInt(6);
+			int index = random.nextInt(CASES);
+			int expected = bruteForce(clue,index);
+			if (t.lookup(clue,index) != expected)
+			{
+				if (differences++ < 10)
+					System.out.printf("clue %d, case %d: table %06x, expected %06x\n",clue,index,t.lookup(clue,index),expected);
+			}
+		}
+		System.out.println(cases + " cases, " + differences + " differences");
+	}
+	//every way of filling in the unknown edges
+	static int bruteForce(int clue, int index)
+	{
+		int known = 0, bits = 0;
+		for (int e = 0, rest = index; e < EDGES; e++, rest /= 3)
+		{
+			if (rest%3 != UNKNOWN)
+				known |= 1 << e;
+			if (rest%3 == ON)
+				bits |= 1 << e;
+		}
+		int on = ALL, off = ALL;
+		for (int fill = 0; fill <= ALL; fill++)
+		{
+			if ((fill & known) != bits || !fits(clue,fill))
+				continue;
+			on &= fill;
+			off &= ~fill & ALL;
+		}
+		return entry(index,on,off);
+	}
+}